@@ -0,0 +1,112 @@
+package com.cubigdata.vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 标量与 Vector API 打分内核对比： 单查询全量打分与多查询批量打分
+ * <p>
+ * 运行： mvn -Pbenchmark test-compile exec:exec -Dbenchmark=SimilarityKernelBenchmark
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 00:30
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class SimilarityKernelBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"1024"})
+    private int dimensions;
+
+    @Param({"8"})
+    private int batch;
+
+    private ByteBuffer matrix;
+    private float[][] queries;
+    private float[] scores;
+    private float[][] batchScores;
+    private SimilarityKernel scalar;
+    private SimilarityKernel simd;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        matrix = ByteBuffer.allocateDirect(rows * dimensions * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int row = 0; row < rows; row++) {
+            float[] vector = new float[dimensions];
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+            for (float v : VectorMath.normalize(vector)) {
+                matrix.putFloat(v);
+            }
+        }
+        matrix.clear();
+        queries = new float[batch][dimensions];
+        for (float[] query : queries) {
+            for (int i = 0; i < dimensions; i++) {
+                query[i] = (float) random.nextGaussian();
+            }
+        }
+        scores = new float[rows];
+        batchScores = new float[batch][rows];
+        scalar = SimilarityKernel.scalar();
+        simd = SimilarityKernel.simd() != null ? SimilarityKernel.simd() : scalar;
+    }
+
+    @Benchmark
+    public float[] scalarSingle() {
+        scalar.scores(matrix, rows, dimensions, queries[0], scores);
+        return scores;
+    }
+
+    @Benchmark
+    public float[] simdSingle() {
+        simd.scores(matrix, rows, dimensions, queries[0], scores);
+        return scores;
+    }
+
+    @Benchmark
+    public float[][] scalarBatch() {
+        scalar.scores(matrix, rows, dimensions, queries, batchScores);
+        return batchScores;
+    }
+
+    @Benchmark
+    public float[][] simdBatch() {
+        simd.scores(matrix, rows, dimensions, queries, batchScores);
+        return batchScores;
+    }
+
+    /**
+     * 多查询逐个调用单查询打分， 与 simdBatch 对比批量打分的收益
+     */
+    @Benchmark
+    public float[][] simdSingleLoop() {
+        for (int q = 0; q < queries.length; q++) {
+            simd.scores(matrix, rows, dimensions, queries[q], batchScores[q]);
+        }
+        return batchScores;
+    }
+}
@@ -1,11 +1,18 @@
 package com.cubigdata;
 
+import com.cubigdata.cache.ClassificationResultCache;
+import com.cubigdata.cache.ColumnResultStore;
+import com.cubigdata.vector.HnswVectorStore;
+import com.cubigdata.vector.KnowledgeBaseIngestor;
+import com.cubigdata.vector.KnowledgeBaseLoader;
+import com.cubigdata.vector.KnowledgeBaseReloader;
+import com.cubigdata.vector.MappedVectorStore;
+import com.cubigdata.vector.ReloadableVectorStore;
+import com.cubigdata.vector.VectorQuantizer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.memory.MessageWindowChatMemory;
 import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.reader.TextReader;
-import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -15,13 +22,10 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.FileSystemResource;
 
-import java.io.File;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * @author yHong
@@ -36,103 +40,96 @@ public class Application {
         SpringApplication.run(Application.class, args);
     }
 
+    /**
+     * 知识库加载器： 每次加载都新建存储， 供启动加载与热加载共用
+     */
     @Bean
-    CommandLineRunner vectorIngestRunner(
+    public KnowledgeBaseLoader knowledgeBaseLoader(
+            EmbeddingModel embeddingModel,
             @Value("${rag.source:classpath:rag/rag_friendly_classification.txt}") Resource ragSource,
             @Value("${rag.vector-file-path:classpath:vectors/classification_vectors.json}") String vectorFilePath,
-            EmbeddingModel embeddingModel,
-            @Qualifier("classificationVectorStore") VectorStore classificationVectorStore
+            @Value("${rag.hnsw.index-path:}") String hnswIndexPath,
+            @Value("${rag.snapshot-path:}") String snapshotPath,
+            @Value("${rag.store:simple}") String storeType,
+            @Value("${rag.hnsw.m:16}") int m,
+            @Value("${rag.hnsw.ef-construction:200}") int efConstruction,
+            @Value("${rag.hnsw.ef-search:64}") int efSearch,
+            @Value("${rag.quantization.type:none}") String quantization,
+            @Value("${rag.quantization.rescore-factor:4}") int rescoreFactor,
+            @Value("${rag.quantization.pq-subspaces:0}") int pqSubspaces,
+            @Value("${rag.ingest.incremental:true}") boolean incremental,
+            @Value("${rag.ingest.batch-size:32}") int ingestBatchSize,
+            @Value("${rag.ingest.parallelism:4}") int ingestParallelism,
+            @Value("${rag.ingest.requests-per-second:0}") double ingestRequestsPerSecond,
+            @Value("${rag.ingest.max-retries:3}") int ingestMaxRetries
     ) {
-        return args -> {
-            try {
-                // 支持 classpath: 和 file: 两种协议
-                Resource vectorFile;
-                String actualPath;
-                File fileToLoad = null;
-                boolean isTemporaryFile = false;
-
-                if (vectorFilePath.startsWith("file:")) {
-                    // 外部文件系统路径（Docker部署场景）
-                    actualPath = vectorFilePath.replace("file:", "");
-                    vectorFile = new FileSystemResource(actualPath);
-                    log.info("📂 使用外部文件系统路径: {}", actualPath);
-
-                    if (vectorFile.exists()) {
-                        fileToLoad = vectorFile.getFile();
-                    }
-                } else {
-                    // classpath路径（开发环境或JAR内部）
-                    actualPath = vectorFilePath.replace("classpath:", "");
-                    vectorFile = new ClassPathResource(actualPath);
-                    log.info("📦 使用classpath路径: {}", actualPath);
-
-                    if (vectorFile.exists()) {
-                        // 从JAR中读取资源，复制到临时文件
-                        try (InputStream inputStream = vectorFile.getInputStream()) {
-                            Path tempFile = Files.createTempFile("classification_vectors_", ".json");
-                            Files.copy(inputStream, tempFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                            fileToLoad = tempFile.toFile();
-                            isTemporaryFile = true;
-                            log.info("📋 已将classpath资源复制到临时文件: {}", tempFile);
-                        }
-                    }
-                }
-
-                if (fileToLoad != null && fileToLoad.exists()) {
-                    log.info("🔄 从预计算文件加载向量数据: {}", vectorFilePath);
-                    // 从文件加载向量数据
-                    if (classificationVectorStore instanceof SimpleVectorStore) {
-                        SimpleVectorStore simpleStore = (SimpleVectorStore) classificationVectorStore;
-                        simpleStore.load(fileToLoad);
-                        log.info("✅ 向量数据加载完成，文件大小: {} KB", fileToLoad.length() / 1024);
-                    }
-
-                    // 如果是临时文件，加载完成后可以删除（可选）
-                    // if (isTemporaryFile) {
-                    //     fileToLoad.deleteOnExit();
-                    // }
-                } else {
-                    log.warn("⚠️ 向量文件不存在: {}", vectorFilePath);
-                    log.info("🔄 正在向量化加载分类分级知识库, EmbeddingModel:{}", embeddingModel.getClass().getName());
-                    var chunks = new TokenTextSplitter().transform(new TextReader(ragSource).read());
-                    classificationVectorStore.write(chunks);
-                    log.info("✅ 向量化完成，共处理 {} 个文档块", chunks.size());
-
-                    // 保存向量数据到文件（用于后续部署）
-                    if (classificationVectorStore instanceof SimpleVectorStore) {
-                        SimpleVectorStore simpleStore = (SimpleVectorStore) classificationVectorStore;
-                        File saveFile;
-
-                        if (vectorFilePath.startsWith("file:")) {
-                            // 外部文件系统路径
-                            saveFile = new File(actualPath);
-                        } else {
-                            // classpath路径，保存到项目resources目录
-                            saveFile = new File("src/main/resources/" + actualPath);
-                        }
+        Supplier<VectorStore> storeFactory = () -> createVectorStore(embeddingModel, storeType, m, efConstruction, efSearch,
+                quantization, rescoreFactor, pqSubspaces);
+        KnowledgeBaseIngestor ingestor = incremental
+                ? new KnowledgeBaseIngestor(ingestBatchSize, ingestParallelism, ingestRequestsPerSecond, ingestMaxRetries)
+                : null;
+        return new KnowledgeBaseLoader(storeFactory, ragSource, vectorFilePath, snapshotPath, hnswIndexPath, ingestor);
+    }
 
-                        // 确保目录存在
-                        if (saveFile.getParentFile() != null) {
-                            saveFile.getParentFile().mkdirs();
-                        }
+    /**
+     * 知识库热加载； 切换成功后清空表级与字段级结果缓存， 避免继续返回按旧知识库得出的结论
+     */
+    @Bean(destroyMethod = "close")
+    public KnowledgeBaseReloader knowledgeBaseReloader(KnowledgeBaseLoader knowledgeBaseLoader,
+                                                       @Qualifier("classificationVectorStore") ReloadableVectorStore classificationVectorStore,
+                                                       ClassificationResultCache classificationResultCache,
+                                                       ColumnResultStore columnResultStore,
+                                                       @Value("${rag.reload.watch-interval:30s}") Duration watchInterval,
+                                                       @Value("${rag.reload.grace-period:60s}") Duration gracePeriod) {
+        KnowledgeBaseReloader reloader = new KnowledgeBaseReloader(knowledgeBaseLoader, classificationVectorStore,
+                watchInterval, gracePeriod);
+        reloader.onReload(() -> log.info("知识库已更新， 清空结果缓存: 表级 {} 条, 字段级 {} 条",
+                classificationResultCache.invalidateAll(), columnResultStore.invalidateAll()));
+        return reloader;
+    }
 
-                        simpleStore.save(saveFile);
-                        log.info("💾 向量数据已保存到: {}, 文件大小: {} KB",
-                                saveFile.getAbsolutePath(), saveFile.length() / 1024);
-                    }
-                }
-            } catch (Exception e) {
-                log.error("❌ 向量数据处理失败: {}", e.getMessage(), e);
-                throw new RuntimeException("向量数据处理失败", e);
+    @Bean
+    CommandLineRunner vectorIngestRunner(KnowledgeBaseReloader knowledgeBaseReloader) {
+        return args -> {
+            Map<String, Object> result = knowledgeBaseReloader.loadInitial();
+            if (!Boolean.TRUE.equals(result.get("success"))) {
+                throw new RuntimeException("向量数据处理失败: " + result.get("error"));
             }
         };
     }
 
     /**
-     * 分类分级向量存储，用于后续 RAG 检索
+     * 分类分级向量存储，用于后续 RAG 检索； 由 vectorIngestRunner 加载， 热加载时整体替换
      */
     @Bean
-    public VectorStore classificationVectorStore(EmbeddingModel embeddingModel) {
+    public ReloadableVectorStore classificationVectorStore(KnowledgeBaseLoader knowledgeBaseLoader) {
+        return new ReloadableVectorStore(knowledgeBaseLoader.newStore());
+    }
+
+    /**
+     * 创建空的向量存储
+     * <p>
+     * rag.store=simple 为暴力检索的 SimpleVectorStore； rag.store=hnsw 为 HNSW 近似检索；
+     * rag.store=mapped 为基于内存映射快照的暴力检索
+     */
+    private static VectorStore createVectorStore(EmbeddingModel embeddingModel, String storeType, int m, int efConstruction,
+                                                 int efSearch, String quantization, int rescoreFactor, int pqSubspaces) {
+        if ("hnsw".equalsIgnoreCase(storeType)) {
+            log.info("知识库向量存储使用 HNSW: M={}, efConstruction={}, efSearch={}", m, efConstruction, efSearch);
+            return HnswVectorStore.builder(embeddingModel)
+                    .m(m)
+                    .efConstruction(efConstruction)
+                    .efSearch(efSearch)
+                    .build();
+        }
+        if ("mapped".equalsIgnoreCase(storeType)) {
+            log.info("知识库向量存储使用内存映射快照: quantization={}, rescoreFactor={}", quantization, rescoreFactor);
+            return MappedVectorStore.builder(embeddingModel)
+                    .quantization(VectorQuantizer.Type.of(quantization))
+                    .rescoreFactor(rescoreFactor)
+                    .pqSubspaces(pqSubspaces)
+                    .build();
+        }
         return SimpleVectorStore
                 .builder(embeddingModel).build();
     }
@@ -0,0 +1,199 @@
+package com.cubigdata.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带缓存的 EmbeddingModel 装饰器
+ * <p>
+ * 以 SHA-256(模型名 + 维度 + 规范化文本) 为键， 内存层为 LRU， 可选的磁盘层为只追加日志， 重启后仍可命中。
+ * 规范化只去除首尾空白并合并连续空白， 仅空白不同的文本共用同一向量。
+ * 同一请求内重复的文本只向远端请求一次， 未命中的文本合并为一次远端调用。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 01:10
+ */
+@Slf4j
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final boolean enabled;
+    private final String defaultModel;
+    private final LruTtlCache<String, float[]> memory;
+    private final EmbeddingLog disk;
+
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong remoteCalls = new AtomicLong();
+
+    /**
+     * @param enabled      为 false 时直接透传给 delegate
+     * @param defaultModel 请求未指定模型时使用的模型名， 参与缓存键计算
+     * @param disk         磁盘层， 为 null 时只用内存层
+     */
+    public CachingEmbeddingModel(EmbeddingModel delegate, boolean enabled, String defaultModel, int maxSize, EmbeddingLog disk) {
+        this.delegate = delegate;
+        this.enabled = enabled;
+        this.defaultModel = defaultModel == null ? "" : defaultModel;
+        this.memory = new LruTtlCache<>(maxSize, null);
+        this.disk = disk;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        if (!enabled) {
+            return delegate.call(request);
+        }
+        EmbeddingOptions options = request.getOptions();
+        String model = options != null && options.getModel() != null ? options.getModel() : defaultModel;
+        Integer dimensions = options != null ? options.getDimensions() : null;
+        List<String> texts = request.getInstructions();
+
+        float[][] vectors = new float[texts.size()][];
+        // 未命中的键 -> 请求中的下标， 同一请求内重复文本只请求一次
+        Map<String, List<Integer>> pending = new LinkedHashMap<>();
+        Map<String, String> pendingTexts = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String key = key(model, dimensions, texts.get(i));
+            float[] cached = lookup(key);
+            if (cached != null) {
+                vectors[i] = cached;
+                continue;
+            }
+            pending.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            pendingTexts.putIfAbsent(key, texts.get(i));
+        }
+
+        EmbeddingResponse remote = null;
+        if (!pending.isEmpty()) {
+            misses.addAndGet(pending.size());
+            remoteCalls.incrementAndGet();
+            List<String> missTexts = new ArrayList<>(pendingTexts.values());
+            remote = delegate.call(new EmbeddingRequest(missTexts, options));
+            List<Embedding> results = remote.getResults();
+            if (results.size() != missTexts.size()) {
+                throw new IllegalStateException("Embedding 返回数量与请求不一致: " + results.size() + " != " + missTexts.size());
+            }
+            List<String> missKeys = new ArrayList<>(pending.keySet());
+            for (int j = 0; j < results.size(); j++) {
+                Embedding embedding = results.get(j);
+                int index = embedding.getIndex() != null ? embedding.getIndex() : j;
+                String key = missKeys.get(index);
+                float[] vector = embedding.getOutput();
+                memory.put(key, vector);
+                if (disk != null) {
+                    disk.append(key, vector);
+                }
+                for (int i : pending.get(key)) {
+                    vectors[i] = vector;
+                }
+            }
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(vectors.length);
+        for (int i = 0; i < vectors.length; i++) {
+            // 缓存中的数组为共享实例， 返回副本避免调用方原地修改
+            embeddings.add(new Embedding(vectors[i].clone(), i));
+        }
+        return remote != null ? new EmbeddingResponse(embeddings, remote.getMetadata()) : new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getFormattedContent(MetadataMode.EMBED));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    private float[] lookup(String key) {
+        float[] cached = memory.get(key);
+        if (cached != null || disk == null) {
+            return cached;
+        }
+        cached = disk.get(key);
+        if (cached != null) {
+            diskHits.incrementAndGet();
+            memory.put(key, cached);
+        }
+        return cached;
+    }
+
+    static String key(String model, Integer dimensions, String text) {
+        String normalized = text == null ? "" : text.strip().replaceAll("\\s+", " ");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((model + "\u0001" + (dimensions == null ? "" : dimensions) + "\u0001").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int invalidateAll() {
+        int removed = memory.invalidateAll();
+        if (disk != null) {
+            removed = Math.max(removed, disk.clear());
+        }
+        log.info("向量缓存已全部失效， 条目数: {}", removed);
+        return removed;
+    }
+
+    /**
+     * 命中数： 内存层与磁盘层之和； 未命中按去重后的文本计
+     */
+    public long hits() {
+        return memory.hits() + diskHits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long memoryHits = memory.hits();
+        long totalHits = memoryHits + diskHits.get();
+        long total = totalHits + misses.get();
+        stats.put("enabled", enabled);
+        stats.put("model", defaultModel);
+        stats.put("size", memory.size());
+        stats.put("memoryHits", memoryHits);
+        stats.put("diskHits", diskHits.get());
+        stats.put("misses", misses.get());
+        stats.put("remoteCalls", remoteCalls.get());
+        stats.put("evictions", memory.evictions());
+        stats.put("hitRate", total == 0 ? 0d : (double) totalHits / total);
+        stats.put("diskEnabled", disk != null);
+        if (disk != null) {
+            stats.put("diskEntries", disk.size());
+            stats.put("diskBytes", disk.bytes());
+        }
+        return stats;
+    }
+
+    public void close() throws IOException {
+        if (disk != null) {
+            disk.close();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.cubigdata.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 表级分类分级结果缓存
+ * <p>
+ * 以规范化后的 query JSON + 类别列表 的 SHA-256 作为内容地址， 缓存 corrected_result。
+ * 内存层按容量与TTL淘汰， 可选的磁盘层按指纹落盘， 重启后仍可命中。
+ * 磁盘层文件数超过 diskMaxEntries 时清理过期文件， 仍超出则按修改时间删除最旧的文件直到降到上限的 90%。
+ * 指纹必须是 64 位十六进制串， 否则不访问磁盘。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 13:55
+ */
+@Slf4j
+public class ClassificationResultCache {
+
+    private static final Pattern FINGERPRINT = Pattern.compile("[0-9a-f]{64}");
+
+    private final ObjectMapper canonicalMapper;
+    private final LruTtlCache<String, String> memory;
+
+    /**
+     * 参与指纹计算的命名空间， 知识库或Prompt变更时修改即可整体失效
+     */
+    private final String namespace;
+
+    private final Path diskDir;
+    private final long diskTtlMillis;
+    private final int diskMaxEntries;
+    private final AtomicInteger diskEntries = new AtomicInteger();
+
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ClassificationResultCache(ObjectMapper objectMapper, int maxSize, Duration ttl, String namespace,
+                                     Path diskDir, Duration diskTtl, int diskMaxEntries) {
+        this.canonicalMapper = objectMapper.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        this.memory = new LruTtlCache<>(maxSize, ttl);
+        this.namespace = namespace == null ? "" : namespace;
+        this.diskDir = diskDir;
+        this.diskTtlMillis = diskTtl == null ? 0 : diskTtl.toMillis();
+        this.diskMaxEntries = diskMaxEntries;
+        if (diskDir != null) {
+            try {
+                Files.createDirectories(diskDir);
+                sweepDisk();
+                log.info("分类结果磁盘缓存目录: {}, 条目数 {}", diskDir.toAbsolutePath(), diskEntries.get());
+            } catch (IOException e) {
+                throw new IllegalStateException("无法创建分类结果缓存目录: " + diskDir, e);
+            }
+        }
+    }
+
+    /**
+     * 计算 (query, category) 的规范化指纹
+     */
+    public String fingerprint(Object query, Object category) {
+        try {
+            ObjectNode root = JsonNodeFactory.instance.objectNode();
+            root.put("ns", namespace);
+            root.set("query", normalize(toTree(query)));
+            ArrayNode categories = root.putArray("category");
+            normalizeCategories(category).forEach(categories::add);
+            byte[] canonical = canonicalMapper.writeValueAsBytes(canonicalMapper.treeToValue(root, Object.class));
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("计算分类缓存指纹失败", e);
+        }
+    }
+
+    /**
+     * 是否为 {@link #fingerprint} 生成的指纹（64 位小写十六进制）
+     */
+    public static boolean isFingerprint(String fingerprint) {
+        return fingerprint != null && FINGERPRINT.matcher(fingerprint).matches();
+    }
+
+    public String get(String fingerprint) {
+        if (!isFingerprint(fingerprint)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        String cached = memory.get(fingerprint);
+        if (cached != null) {
+            return cached;
+        }
+        if (diskDir != null) {
+            Path file = diskFile(fingerprint);
+            try {
+                if (Files.exists(file) && !isDiskExpired(file)) {
+                    String value = Files.readString(file, StandardCharsets.UTF_8);
+                    memory.put(fingerprint, value);
+                    diskHits.incrementAndGet();
+                    return value;
+                }
+            } catch (IOException e) {
+                log.warn("读取分类结果磁盘缓存失败: {}", file, e);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String fingerprint, String correctedResult) {
+        if (correctedResult == null || !isFingerprint(fingerprint)) {
+            return;
+        }
+        memory.put(fingerprint, correctedResult);
+        if (diskDir != null) {
+            Path file = diskFile(fingerprint);
+            try {
+                boolean exists = Files.exists(file);
+                Path tmp = Files.createTempFile(diskDir, fingerprint, ".tmp");
+                Files.writeString(tmp, correctedResult, StandardCharsets.UTF_8);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                if (!exists && diskEntries.incrementAndGet() > diskMaxEntries && diskMaxEntries > 0) {
+                    sweepDisk();
+                }
+            } catch (IOException e) {
+                log.warn("写入分类结果磁盘缓存失败: {}", file, e);
+            }
+        }
+    }
+
+    public boolean invalidate(String fingerprint) {
+        if (!isFingerprint(fingerprint)) {
+            return false;
+        }
+        boolean removed = memory.invalidate(fingerprint);
+        if (diskDir != null) {
+            try {
+                if (Files.deleteIfExists(diskFile(fingerprint))) {
+                    diskEntries.decrementAndGet();
+                    removed = true;
+                }
+            } catch (IOException e) {
+                log.warn("删除分类结果磁盘缓存失败: {}", fingerprint, e);
+            }
+        }
+        return removed;
+    }
+
+    public int invalidateAll() {
+        int removed = memory.invalidateAll();
+        if (diskDir != null) {
+            try (Stream<Path> files = Files.list(diskDir)) {
+                for (Path file : files.filter(f -> f.toString().endsWith(".json")).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                log.warn("清空分类结果磁盘缓存失败: {}", diskDir, e);
+            }
+            diskEntries.set(0);
+        }
+        log.info("分类结果缓存已全部失效， 内存条目数: {}", removed);
+        return removed;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long memoryHits = memory.hits();
+        long totalHits = memoryHits + diskHits.get();
+        long total = totalHits + misses.get();
+        stats.put("namespace", namespace);
+        stats.put("size", memory.size());
+        stats.put("memoryHits", memoryHits);
+        stats.put("diskHits", diskHits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", memory.evictions());
+        stats.put("hitRate", total == 0 ? 0d : (double) totalHits / total);
+        stats.put("diskEnabled", diskDir != null);
+        stats.put("diskEntries", diskEntries.get());
+        return stats;
+    }
+
+    public long hits() {
+        return memory.hits() + diskHits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    private JsonNode toTree(Object query) throws IOException {
+        if (query instanceof String queryStr) {
+            try {
+                return canonicalMapper.readTree(queryStr);
+            } catch (IOException e) {
+                return TextNode.valueOf(queryStr);
+            }
+        }
+        return canonicalMapper.valueToTree(query);
+    }
+
+    /**
+     * 去除字符串首尾空白， 对象键排序由 ORDER_MAP_ENTRIES_BY_KEYS 保证； 数组保持原顺序（字段顺序会影响输出）
+     */
+    private JsonNode normalize(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return JsonNodeFactory.instance.nullNode();
+        }
+        if (node.isTextual()) {
+            return TextNode.valueOf(node.asText().trim());
+        }
+        if (node.isArray()) {
+            ArrayNode array = JsonNodeFactory.instance.arrayNode();
+            node.forEach(item -> array.add(normalize(item)));
+            return array;
+        }
+        if (node.isObject()) {
+            ObjectNode object = JsonNodeFactory.instance.objectNode();
+            for (Map.Entry<String, JsonNode> field : node.properties()) {
+                object.set(field.getKey(), normalize(field.getValue()));
+            }
+            return object;
+        }
+        return node;
+    }
+
+    private List<String> normalizeCategories(Object category) throws IOException {
+        TreeSet<String> categories = new TreeSet<>();
+        JsonNode node = toTree(category);
+        if (node == null || node.isNull()) {
+            return List.of();
+        }
+        if (node.isArray()) {
+            node.forEach(item -> categories.add(item.asText().trim()));
+        } else {
+            categories.add(node.asText().trim());
+        }
+        return new ArrayList<>(categories);
+    }
+
+    private Path diskFile(String fingerprint) {
+        return diskDir.resolve(fingerprint + ".json");
+    }
+
+    /**
+     * 删除过期文件； 仍超过上限时按修改时间删除最旧的文件， 降到上限的 90%
+     */
+    private synchronized void sweepDisk() {
+        List<Map.Entry<Path, FileTime>> files = new ArrayList<>();
+        int expired = 0;
+        try (Stream<Path> list = Files.list(diskDir)) {
+            for (Path file : list.filter(f -> f.toString().endsWith(".json")).toList()) {
+                try {
+                    if (isDiskExpired(file)) {
+                        Files.deleteIfExists(file);
+                        expired++;
+                    } else {
+                        files.add(new AbstractMap.SimpleEntry<>(file, Files.getLastModifiedTime(file)));
+                    }
+                } catch (IOException e) {
+                    // 并发删除或读取属性失败， 跳过该文件
+                }
+            }
+        } catch (IOException e) {
+            log.warn("清理分类结果磁盘缓存失败: {}", diskDir, e);
+            return;
+        }
+        int evicted = 0;
+        if (diskMaxEntries > 0 && files.size() > diskMaxEntries) {
+            files.sort(Map.Entry.comparingByValue());
+            int target = diskMaxEntries * 9 / 10;
+            for (Map.Entry<Path, FileTime> file : files.subList(0, files.size() - target)) {
+                try {
+                    Files.deleteIfExists(file.getKey());
+                    evicted++;
+                } catch (IOException e) {
+                    log.warn("删除分类结果磁盘缓存失败: {}", file.getKey(), e);
+                }
+            }
+        }
+        diskEntries.set(files.size() - evicted);
+        if (expired > 0 || evicted > 0) {
+            log.info("分类结果磁盘缓存清理: 过期 {} 个, 超出上限淘汰 {} 个, 剩余 {} 个", expired, evicted, diskEntries.get());
+        }
+    }
+
+    private boolean isDiskExpired(Path file) throws IOException {
+        return diskTtlMillis > 0
+                && System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > diskTtlMillis;
+    }
+}
@@ -0,0 +1,106 @@
+package com.cubigdata.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 字段级分类分级结果存储
+ * <p>
+ * 以规范化的 (columnName, columnComment, 类别集合) 为键， 保存已校验的字段结果
+ * （columnClassifications / columnLevel / columnReasoning / modelReliability / modelKey），
+ * 供后续表中出现的相同字段直接复用， 只把未命中的字段交给大模型。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 15:30
+ */
+public class ColumnResultStore {
+
+    /**
+     * 需要复用的字段结果属性
+     */
+    public static final String[] RESULT_KEYS = {
+            "columnClassifications", "columnLevel", "columnReasoning", "modelReliability", "modelKey"
+    };
+
+    private final LruTtlCache<String, Map<String, Object>> cache;
+
+    /**
+     * 置信度低于该值的结果不入库， 避免复用“需人工确认”的结论
+     */
+    private final int minReliability;
+
+    public ColumnResultStore(int maxSize, Duration ttl, int minReliability) {
+        this.cache = new LruTtlCache<>(maxSize, ttl);
+        this.minReliability = minReliability;
+    }
+
+    /**
+     * 计算字段键， 类别集合按规范化排序， 与类别顺序无关
+     */
+    public String key(Object columnName, Object columnComment, Collection<String> categories) {
+        TreeSet<String> sorted = new TreeSet<>();
+        if (categories != null) {
+            categories.forEach(c -> sorted.add(c.trim()));
+        }
+        return normalize(columnName).toLowerCase(Locale.ROOT) + "\u0001" + normalize(columnComment) + "\u0001"
+                + String.join("\u0002", sorted);
+    }
+
+    public Map<String, Object> get(String key) {
+        Map<String, Object> cached = cache.get(key);
+        return cached == null ? null : new HashMap<>(cached);
+    }
+
+    /**
+     * 保存字段结果， 只保留 RESULT_KEYS 中的属性
+     */
+    public boolean put(String key, Map<String, Object> columnResult) {
+        if (reliability(columnResult.get("modelReliability")) < minReliability) {
+            return false;
+        }
+        Map<String, Object> value = new HashMap<>();
+        for (String resultKey : RESULT_KEYS) {
+            Object v = columnResult.get(resultKey);
+            if (v != null) {
+                value.put(resultKey, v);
+            }
+        }
+        if (!value.containsKey("columnClassifications") || !value.containsKey("columnLevel")) {
+            return false;
+        }
+        cache.put(key, Map.copyOf(value));
+        return true;
+    }
+
+    public int invalidateAll() {
+        return cache.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+                "size", cache.size(),
+                "hits", cache.hits(),
+                "misses", cache.misses(),
+                "evictions", cache.evictions(),
+                "hitRate", cache.hitRate());
+    }
+
+    private static String normalize(Object value) {
+        return value == null ? "" : value.toString().trim().replaceAll("\\s+", " ");
+    }
+
+    private static int reliability(Object value) {
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        try {
+            return value == null ? 0 : (int) Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.cubigdata.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 只追加的向量磁盘日志
+ * <p>
+ * 记录格式（小端）： magic(int) key(32 字节 SHA-256) dimensions(int) float32 * dimensions crc32(int)。
+ * 打开时顺序扫描一遍， 只在内存中保留 key -> 偏移； 尾部不完整或校验失败的记录（进程中途退出）会被截断。
+ * 同一 key 重复追加时以最后一条为准。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 01:10
+ */
+@Slf4j
+public class EmbeddingLog implements Closeable {
+
+    private static final int MAGIC = 0x454D4231;
+    static final int KEY_BYTES = 32;
+    private static final int HEADER_BYTES = 4 + KEY_BYTES + 4;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long maxBytes;
+    private final Map<String, Long> offsets = new HashMap<>();
+    private long size;
+    private boolean full;
+
+    /**
+     * @param maxBytes 文件上限， 超过后不再追加； 小于等于 0 表示不限制
+     */
+    public EmbeddingLog(Path file, long maxBytes) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.size = scan();
+        if (size < channel.size()) {
+            log.warn("向量缓存日志尾部不完整， 截断 {} 字节: {}", channel.size() - size, file);
+            channel.truncate(size);
+        }
+        log.info("向量缓存日志已加载: {}, 条目数 {}, 大小 {} KB", file, offsets.size(), size / 1024);
+    }
+
+    private long scan() throws IOException {
+        long position = 0;
+        long length = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (position + HEADER_BYTES <= length) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                break;
+            }
+            byte[] key = new byte[KEY_BYTES];
+            header.get(key);
+            int dimensions = header.getInt();
+            long recordBytes = recordBytes(dimensions);
+            if (dimensions <= 0 || position + recordBytes > length || readVerified(position, dimensions) == null) {
+                break;
+            }
+            offsets.put(HexFormat.of().formatHex(key), position);
+            position += recordBytes;
+        }
+        return position;
+    }
+
+    public synchronized float[] get(String key) {
+        Long position = offsets.get(key);
+        if (position == null) {
+            return null;
+        }
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, position);
+            return readVerified(position, header.getInt(4 + KEY_BYTES));
+        } catch (IOException e) {
+            log.warn("读取向量缓存日志失败: {}", file, e);
+            return null;
+        }
+    }
+
+    public synchronized void append(String key, float[] vector) {
+        if (full || offsets.containsKey(key)) {
+            return;
+        }
+        long recordBytes = recordBytes(vector.length);
+        if (maxBytes > 0 && size + recordBytes > maxBytes) {
+            full = true;
+            log.warn("向量缓存日志已达上限 {} KB， 不再追加: {}", maxBytes / 1024, file);
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate((int) recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+        record.putInt(MAGIC).put(HexFormat.of().parseHex(key)).putInt(vector.length);
+        for (float v : vector) {
+            record.putFloat(v);
+        }
+        record.putInt(crc(record.array(), (int) recordBytes - 4));
+        record.flip();
+        try {
+            long position = size;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+            offsets.put(key, size);
+            size = position;
+        } catch (IOException e) {
+            log.warn("写入向量缓存日志失败: {}", file, e);
+        }
+    }
+
+    public synchronized int size() {
+        return offsets.size();
+    }
+
+    public synchronized long bytes() {
+        return size;
+    }
+
+    /**
+     * 清空日志文件
+     */
+    public synchronized int clear() {
+        int removed = offsets.size();
+        try {
+            channel.truncate(0);
+        } catch (IOException e) {
+            log.warn("清空向量缓存日志失败: {}", file, e);
+        }
+        offsets.clear();
+        size = 0;
+        full = false;
+        return removed;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private float[] readVerified(long position, int dimensions) throws IOException {
+        int recordBytes = (int) recordBytes(dimensions);
+        ByteBuffer record = ByteBuffer.allocate(recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+        while (record.hasRemaining()) {
+            if (channel.read(record, position + record.position()) < 0) {
+                return null;
+            }
+        }
+        if (record.getInt(recordBytes - 4) != crc(record.array(), recordBytes - 4)) {
+            return null;
+        }
+        float[] vector = new float[dimensions];
+        record.position(HEADER_BYTES);
+        record.asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    private static long recordBytes(int dimensions) {
+        return HEADER_BYTES + (long) dimensions * Float.BYTES + 4;
+    }
+
+    private static int crc(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,114 @@
+package com.cubigdata.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 线程安全的 LRU + TTL 内存缓存
+ * <p>
+ * 超过容量时淘汰最久未访问的条目， 超过TTL的条目在访问时失效。ttl&lt;=0 表示不过期。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 13:40
+ */
+public class LruTtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public LruTtlCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl == null ? 0 : ttl.toMillis();
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (isExpired(entry, System.currentTimeMillis())) {
+            entries.remove(key);
+            evictions++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized boolean invalidate(K key) {
+        return entries.remove(key) != null;
+    }
+
+    /**
+     * 按条件批量失效， 返回失效条目数
+     */
+    public synchronized int invalidateIf(Predicate<K> predicate) {
+        int removed = 0;
+        Iterator<K> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            if (predicate.test(it.next())) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized int invalidateAll() {
+        int size = entries.size();
+        entries.clear();
+        return size;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public synchronized double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0d : (double) hits / total;
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return ttlMillis > 0 && now - entry.createdMillis > ttlMillis;
+    }
+
+    private record Entry<V>(V value, long createdMillis) {
+    }
+}
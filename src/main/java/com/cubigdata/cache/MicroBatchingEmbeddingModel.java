@@ -0,0 +1,212 @@
+package com.cubigdata.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * 跨请求合并的 EmbeddingModel 微批装饰器
+ * <p>
+ * 并发到达的小请求先进入同一批次（按模型与维度分组）， 批次在首个文本到达 window 后或凑满 maxBatchSize 时
+ * 合并为一次远端调用， 结果按下标分发回各调用方。 文本数不小于 maxBatchSize 的请求（如知识库导入）直接透传。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 01:40
+ */
+@Slf4j
+public class MicroBatchingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService dispatcher;
+
+    private final Object lock = new Object();
+    private final Map<String, Batch> open = new HashMap<>();
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedTexts = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+    private final AtomicInteger maxObserved = new AtomicInteger();
+    private IntConsumer batchSizeRecorder = size -> {
+    };
+
+    public MicroBatchingEmbeddingModel(EmbeddingModel delegate, Duration window, int maxBatchSize, int maxConcurrent) {
+        this.delegate = delegate;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.timer = Executors.newSingleThreadScheduledExecutor(threadFactory("embedding-batch-timer"));
+        this.dispatcher = Executors.newFixedThreadPool(Math.max(1, maxConcurrent), threadFactory("embedding-batch"));
+    }
+
+    /**
+     * 每次远端调用的批大小回调， 用于导出指标
+     */
+    public void onBatch(IntConsumer recorder) {
+        this.batchSizeRecorder = recorder;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        requests.incrementAndGet();
+        if (texts.isEmpty() || texts.size() >= maxBatchSize) {
+            bypassed.incrementAndGet();
+            return delegate.call(request);
+        }
+        List<CompletableFuture<float[]>> futures = enqueue(request.getOptions(), texts);
+        List<Embedding> embeddings = new ArrayList<>(futures.size());
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                embeddings.add(new Embedding(futures.get(i).join(), i));
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getFormattedContent(MetadataMode.EMBED));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    private List<CompletableFuture<float[]>> enqueue(EmbeddingOptions options, List<String> texts) {
+        String key = options == null ? "" : options.getModel() + "\u0001" + options.getDimensions();
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(texts.size());
+        List<Batch> ready = new ArrayList<>();
+        synchronized (lock) {
+            Batch batch = open.get(key);
+            if (batch != null && batch.texts.size() + texts.size() > maxBatchSize) {
+                ready.add(close(key, batch));
+                batch = null;
+            }
+            if (batch == null) {
+                Batch created = new Batch(options);
+                created.timer = timer.schedule(() -> flush(key, created), windowNanos, TimeUnit.NANOSECONDS);
+                open.put(key, created);
+                batch = created;
+            }
+            for (String text : texts) {
+                CompletableFuture<float[]> future = new CompletableFuture<>();
+                batch.texts.add(text);
+                batch.futures.add(future);
+                futures.add(future);
+            }
+            if (batch.texts.size() >= maxBatchSize) {
+                ready.add(close(key, batch));
+            }
+        }
+        ready.forEach(this::dispatch);
+        return futures;
+    }
+
+    private void flush(String key, Batch batch) {
+        synchronized (lock) {
+            if (open.get(key) != batch) {
+                return;
+            }
+            open.remove(key);
+        }
+        dispatch(batch);
+    }
+
+    private Batch close(String key, Batch batch) {
+        open.remove(key);
+        batch.timer.cancel(false);
+        return batch;
+    }
+
+    private void dispatch(Batch batch) {
+        dispatcher.execute(() -> {
+            int size = batch.texts.size();
+            batches.incrementAndGet();
+            batchedTexts.addAndGet(size);
+            maxObserved.accumulateAndGet(size, Math::max);
+            batchSizeRecorder.accept(size);
+            try {
+                List<Embedding> results = delegate.call(new EmbeddingRequest(batch.texts, batch.options)).getResults();
+                if (results.size() != size) {
+                    throw new IllegalStateException("Embedding 返回数量与请求不一致: " + results.size() + " != " + size);
+                }
+                for (int j = 0; j < size; j++) {
+                    Embedding embedding = results.get(j);
+                    int index = embedding.getIndex() != null ? embedding.getIndex() : j;
+                    batch.futures.get(index).complete(embedding.getOutput());
+                }
+            } catch (Throwable e) {
+                log.warn("合并 Embedding 请求失败， 批大小 {}: {}", size, e.getMessage());
+                batch.futures.forEach(future -> future.completeExceptionally(e));
+            }
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long batchCount = batches.get();
+        stats.put("windowMillis", windowNanos / 1_000_000.0);
+        stats.put("maxBatchSize", maxBatchSize);
+        stats.put("requests", requests.get());
+        stats.put("bypassed", bypassed.get());
+        stats.put("batches", batchCount);
+        stats.put("avgBatchSize", batchCount == 0 ? 0d : (double) batchedTexts.get() / batchCount);
+        stats.put("maxObservedBatchSize", maxObserved.get());
+        return stats;
+    }
+
+    public void close() {
+        timer.shutdown();
+        dispatcher.shutdown();
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Batch {
+        private final EmbeddingOptions options;
+        private final List<String> texts = new ArrayList<>();
+        private final List<CompletableFuture<float[]>> futures = new ArrayList<>();
+        private ScheduledFuture<?> timer;
+
+        private Batch(EmbeddingOptions options) {
+            this.options = options;
+        }
+    }
+}
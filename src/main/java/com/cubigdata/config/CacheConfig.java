@@ -0,0 +1,123 @@
+package com.cubigdata.config;
+
+import com.cubigdata.cache.CachingEmbeddingModel;
+import com.cubigdata.cache.ClassificationResultCache;
+import com.cubigdata.cache.ColumnResultStore;
+import com.cubigdata.cache.EmbeddingLog;
+import com.cubigdata.cache.MicroBatchingEmbeddingModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.openai.OpenAiEmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 分类分级缓存配置
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 14:20
+ */
+@Configuration
+@Slf4j
+public class CacheConfig {
+
+    /**
+     * 表级分类结果缓存， 位于工作流之前
+     */
+    @Bean
+    public ClassificationResultCache classificationResultCache(ObjectMapper objectMapper,
+                                                               @Value("${classification.cache.max-size:10000}") int maxSize,
+                                                               @Value("${classification.cache.ttl:24h}") Duration ttl,
+                                                               @Value("${classification.cache.namespace:v1}") String namespace,
+                                                               @Value("${classification.cache.disk.enabled:false}") boolean diskEnabled,
+                                                               @Value("${classification.cache.disk.path:./cache/classification}") String diskPath,
+                                                               @Value("${classification.cache.disk.ttl:7d}") Duration diskTtl,
+                                                               @Value("${classification.cache.disk.max-entries:100000}") int diskMaxEntries,
+                                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        ClassificationResultCache cache = new ClassificationResultCache(objectMapper, maxSize, ttl, namespace,
+                diskEnabled ? Path.of(diskPath) : null, diskTtl, diskMaxEntries);
+        meterRegistry.ifAvailable(registry -> {
+            FunctionCounter.builder("sec.classification.cache.hits", cache, ClassificationResultCache::hits).register(registry);
+            FunctionCounter.builder("sec.classification.cache.misses", cache, ClassificationResultCache::misses).register(registry);
+            Gauge.builder("sec.classification.cache.size", cache, c -> ((Number) c.stats().get("size")).doubleValue()).register(registry);
+        });
+        return cache;
+    }
+
+    /**
+     * 字段级结果存储， 相同字段在不同表中复用结果
+     */
+    @Bean
+    public ColumnResultStore columnResultStore(@Value("${classification.column-cache.max-size:100000}") int maxSize,
+                                               @Value("${classification.column-cache.ttl:7d}") Duration ttl,
+                                               @Value("${classification.column-cache.min-reliability:70}") int minReliability,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        ColumnResultStore store = new ColumnResultStore(maxSize, ttl, minReliability);
+        meterRegistry.ifAvailable(registry -> Gauge.builder("sec.classification.column-cache.hit-rate", store,
+                s -> ((Number) s.stats().get("hitRate")).doubleValue()).register(registry));
+        return store;
+    }
+
+    /**
+     * 向量模型微批： 并发的小请求在时间窗口内合并为一次远端调用， 位于缓存与远端模型之间
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "embedding.batch.enabled", havingValue = "true", matchIfMissing = true)
+    public MicroBatchingEmbeddingModel microBatchingEmbeddingModel(OpenAiEmbeddingModel openAiEmbeddingModel,
+                                                                   @Value("${embedding.batch.window:5ms}") Duration window,
+                                                                   @Value("${embedding.batch.max-size:32}") int maxBatchSize,
+                                                                   @Value("${embedding.batch.max-concurrent:8}") int maxConcurrent,
+                                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        MicroBatchingEmbeddingModel batcher = new MicroBatchingEmbeddingModel(openAiEmbeddingModel, window, maxBatchSize, maxConcurrent);
+        log.info("向量模型微批已启用: window={}, maxBatchSize={}, maxConcurrent={}", window, maxBatchSize, maxConcurrent);
+        meterRegistry.ifAvailable(registry -> {
+            DistributionSummary batchSize = DistributionSummary.builder("sec.embedding.batch.size")
+                    .description("每次远端 Embedding 调用合并的文本数")
+                    .register(registry);
+            batcher.onBatch(batchSize::record);
+        });
+        return batcher;
+    }
+
+    /**
+     * 带缓存的向量模型， 作为首选 EmbeddingModel 注入知识库向量存储与历史相似索引；
+     * embedding.cache.enabled=false 时只透传， 仍保留微批
+     */
+    @Bean(destroyMethod = "close")
+    @Primary
+    public CachingEmbeddingModel cachingEmbeddingModel(OpenAiEmbeddingModel openAiEmbeddingModel,
+                                                       ObjectProvider<MicroBatchingEmbeddingModel> microBatchingEmbeddingModel,
+                                                       @Value("${embedding.cache.enabled:true}") boolean enabled,
+                                                       @Value("${spring.ai.openai.embedding.options.model:}") String model,
+                                                       @Value("${embedding.cache.max-size:50000}") int maxSize,
+                                                       @Value("${embedding.cache.disk.enabled:false}") boolean diskEnabled,
+                                                       @Value("${embedding.cache.disk.path:./cache/embedding/embeddings.log}") String diskPath,
+                                                       @Value("${embedding.cache.disk.max-size:1GB}") DataSize diskMaxSize,
+                                                       ObjectProvider<MeterRegistry> meterRegistry) throws IOException {
+        MicroBatchingEmbeddingModel batcher = microBatchingEmbeddingModel.getIfAvailable();
+        EmbeddingModel delegate = batcher != null ? batcher : openAiEmbeddingModel;
+        EmbeddingLog disk = enabled && diskEnabled ? new EmbeddingLog(Path.of(diskPath), diskMaxSize.toBytes()) : null;
+        CachingEmbeddingModel cache = new CachingEmbeddingModel(delegate, enabled, model, maxSize, disk);
+        log.info("向量模型缓存: enabled={}, model={}, maxSize={}, disk={}", enabled, model, maxSize, disk != null ? diskPath : "off");
+        meterRegistry.ifAvailable(registry -> {
+            FunctionCounter.builder("sec.embedding.cache.hits", cache, CachingEmbeddingModel::hits).register(registry);
+            FunctionCounter.builder("sec.embedding.cache.misses", cache, CachingEmbeddingModel::misses).register(registry);
+            Gauge.builder("sec.embedding.cache.hit-rate", cache, c -> ((Number) c.stats().get("hitRate")).doubleValue()).register(registry);
+        });
+        return cache;
+    }
+}
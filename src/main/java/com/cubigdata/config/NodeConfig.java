@@ -1,6 +1,22 @@
 package com.cubigdata.config;
 
 import com.alibaba.cloud.ai.graph.node.KnowledgeRetrievalNode;
+import com.cubigdata.cache.ColumnResultStore;
+import com.cubigdata.vector.HybridRetriever;
+import com.cubigdata.vector.KnowledgeBaseReloader;
+import com.cubigdata.workflow.support.ChunkingOptions;
+import com.cubigdata.workflow.support.CompactOutputCodec;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeAction;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.cubigdata.workflow.nodes.LocalSimilarityMatchNode;
+import com.cubigdata.workflow.nodes.MultiQueryRetrievalNode;
+import com.cubigdata.workflow.rules.RuleBasedClassifier;
+import com.cubigdata.workflow.similarity.HistoricalLabelIndex;
+import com.cubigdata.workflow.support.ColumnStreamRegistry;
+import com.cubigdata.workflow.support.OffloadedNodeAction;
+import com.cubigdata.workflow.support.PromptEncoder;
+import com.cubigdata.workflow.support.HedgingOptions;
+import com.cubigdata.workflow.support.LatencyTracker;
 import com.cubigdata.workflow.nodes.CategoryValidationNode;
 import com.cubigdata.workflow.nodes.ClassificationLLMNode;
 import com.cubigdata.workflow.nodes.SimilarityMatchNode;
@@ -10,19 +26,28 @@ import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import javax.net.ssl.SSLException;
 import java.io.IOException;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.netty.http.client.HttpClient;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Configuration
 @Slf4j
@@ -35,10 +60,35 @@ public class NodeConfig {
 
 
     /**
-     * KnowledgeRetrievalNode 节点配置
+     * 知识库检索节点配置
+     * <p>
+     * mode=multi-query 按字段多路检索后去重合并； mode=hybrid 在此基础上每路走 BM25 + 向量混合检索；
+     * mode=single 将整条 query 作为一次检索
      */
     @Bean("knowledgeRetrievalNode")
-    public KnowledgeRetrievalNode knowledgeRetrievalNode(@Qualifier("classificationVectorStore") VectorStore classificationVectorStore) {
+    public NodeAction knowledgeRetrievalNode(@Qualifier("classificationVectorStore") VectorStore classificationVectorStore,
+                                             @Value("${rag.retrieval.mode:single}") String mode,
+                                             @Value("${rag.retrieval.top-k-per-query:3}") int topKPerQuery,
+                                             @Value("${rag.retrieval.similarity-threshold:0.2}") double similarityThreshold,
+                                             @Value("${rag.retrieval.max-docs:12}") int maxDocs,
+                                             @Value("${rag.retrieval.max-chars:6000}") int maxChars,
+                                             @Value("${rag.retrieval.parallelism:8}") int parallelism,
+                                             @Value("${rag.retrieval.hybrid.candidates:20}") int hybridCandidates,
+                                             @Value("${rag.retrieval.hybrid.rrf-k:60}") double rrfK,
+                                             KnowledgeBaseReloader knowledgeBaseReloader) {
+        boolean hybrid = "hybrid".equalsIgnoreCase(mode);
+        if (hybrid || "multi-query".equalsIgnoreCase(mode)) {
+            log.info("知识库检索使用按字段多路检索: hybrid={}, topKPerQuery={}, maxDocs={}, maxChars={}",
+                    hybrid, topKPerQuery, maxDocs, maxChars);
+            HybridRetriever hybridRetriever = null;
+            if (hybrid) {
+                hybridRetriever = new HybridRetriever(classificationVectorStore, hybridCandidates, rrfK);
+                // 启动加载与热加载时在新存储上线前构建 BM25 索引， 不占用检索请求
+                knowledgeBaseReloader.beforeSwap(hybridRetriever::prepare);
+            }
+            return new MultiQueryRetrievalNode(classificationVectorStore, objectMapper, "query", "retrievedDocs",
+                    topKPerQuery, similarityThreshold, maxDocs, maxChars, parallelism, hybridRetriever);
+        }
         return KnowledgeRetrievalNode.builder()
                 .inputKey("query")
                 .vectorStore(classificationVectorStore)
@@ -51,10 +101,36 @@ public class NodeConfig {
 
     /**
      * 相似度匹配节点配置
+     * <p>
+     * mode=remote 调用外部 Python 相似度匹配服务； mode=local 使用进程内历史打标索引
      */
     @Bean("similarityMatchNode")
-    public SimilarityMatchNode similarityMatchNode(@Value("${similarity.match.url}") String similarityMatchUrl) throws SSLException {
+    public AsyncNodeAction similarityMatchNode(@Value("${similarity.match.mode:remote}") String mode,
+                                               @Value("${similarity.match.url:}") String similarityMatchUrl,
+                                               @Value("${similarity.match.timeout:30000}") Duration timeout,
+                                               @Value("${similarity.match.hedge.enabled:false}") boolean hedgeEnabled,
+                                               @Value("${similarity.match.hedge.percentile:0.95}") double hedgePercentile,
+                                               @Value("${similarity.match.hedge.min-delay:50ms}") Duration hedgeMinDelay,
+                                               @Value("${similarity.match.hedge.min-samples:20}") int hedgeMinSamples,
+                                               @Value("${similarity.match.hedge.window:200}") int hedgeWindow,
+                                               @Value("${similarity.match.local.source:classpath:rag/historical_labels.jsonl}") Resource localSource,
+                                               @Value("${similarity.match.local.index-path:}") String localIndexPath,
+                                               @Value("${similarity.match.local.threshold:0.6}") double localThreshold,
+                                               @Value("${similarity.match.local.top-n:2}") int localTopN,
+                                               @Value("${similarity.match.local.embed-batch-size:64}") int embedBatchSize,
+                                               @Value("${spring.ai.openai.embedding.options.model:}") String embeddingModelName,
+                                               EmbeddingModel embeddingModel,
+                                               @Qualifier("workflowNodeScheduler") Scheduler nodeScheduler) {
+        if ("local".equalsIgnoreCase(mode)) {
+            HistoricalLabelIndex index = new HistoricalLabelIndex(embeddingModel, objectMapper, localSource, embeddingModelName,
+                    localIndexPath.isBlank() ? null : Path.of(localIndexPath), embedBatchSize);
+            log.info("相似度匹配使用本地历史打标索引: {}", localSource);
+            return OffloadedNodeAction.offload(
+                    new LocalSimilarityMatchNode(index, objectMapper, localThreshold, localTopN), nodeScheduler);
+        }
+
         HttpClient httpClient = HttpClient.create()
+                .responseTimeout(timeout)
                 .secure(ssl -> {
                     try {
                         ssl.sslContext(
@@ -70,20 +146,73 @@ public class NodeConfig {
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .build();
 
-        return new SimilarityMatchNode(webClient, similarityMatchUrl);
+        return new SimilarityMatchNode(webClient, similarityMatchUrl,
+                new HedgingOptions(hedgeEnabled, hedgePercentile, hedgeMinDelay, hedgeMinSamples),
+                new LatencyTracker(hedgeWindow));
+    }
+
+    /**
+     * 阻塞型节点（向量检索、大模型调用）的执行调度器， 线程数与排队数均有上限
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler workflowNodeScheduler(@Value("${workflow.node.thread-cap:64}") int threadCap,
+                                           @Value("${workflow.node.queue-cap:10000}") int queueCap) {
+        return Schedulers.newBoundedElastic(threadCap, queueCap, "sec-node");
     }
 
 
     /**
-     * 分类分级节点配置
+     * 字段级流式事件登记表， 供 /flux 逐字段推送
+     */
+    @Bean
+    public ColumnStreamRegistry columnStreamRegistry() {
+        return new ColumnStreamRegistry();
+    }
+
+    /**
+     * 分类分级节点配置； 规则预分类的字段词典由知识库原文编译， 知识库热加载后重建
      */
     @Bean("classificationLLMNode")
     public ClassificationLLMNode classificationLLMNode(ChatClient.Builder chatClientBuilder,
-                                                       @Qualifier("classificationVectorStore") VectorStore classificationVectorStore) throws IOException {
-        String promptTemplate = new String(
-                Objects.requireNonNull(
-                        this.getClass().getResourceAsStream("/classification_prompt.txt")
-                ).readAllBytes(), StandardCharsets.UTF_8);
+                                                       @Qualifier("classificationVectorStore") VectorStore classificationVectorStore,
+                                                       ColumnResultStore columnResultStore,
+                                                       @Value("${classification.column-cache.enabled:true}") boolean columnCacheEnabled,
+                                                       @Value("${spring.ai.openai.chat.options.model:gpt-oss-120b}") String modelKey,
+                                                       @Value("${classification.chunk.enabled:false}") boolean chunkEnabled,
+                                                       @Value("${classification.chunk.size:40}") int chunkSize,
+                                                       @Value("${classification.chunk.threshold:80}") int chunkThreshold,
+                                                       @Value("${classification.chunk.parallelism:4}") int chunkParallelism,
+                                                       @Value("${classification.stream.enabled:false}") boolean streaming,
+                                                       @Value("${classification.prompt.compact:true}") boolean compactPrompt,
+                                                       @Value("${classification.prompt.max-sample-chars:60}") int maxSampleChars,
+                                                       @Value("${classification.output.compact:false}") boolean compactOutput,
+                                                       @Value("${classification.rules.enabled:false}") boolean rulesEnabled,
+                                                       @Value("${rag.source:classpath:rag/rag_friendly_classification.txt}") Resource ragSource,
+                                                       @Value("${classification.rules.value-rules:classpath:rag/value_rules.json}") Resource valueRules,
+                                                       ColumnStreamRegistry columnStreamRegistry,
+                                                       KnowledgeBaseReloader knowledgeBaseReloader) throws IOException {
+        // 系统 Prompt 为固定前缀（规则 + 输出结构）， 用户 Prompt 只含每张表变化的部分
+        String systemPrompt = readPrompt("/classification_prompt.txt")
+                + readPrompt(compactOutput ? "/classification_output_compact.txt" : "/classification_output.txt");
+        if (compactOutput && streaming) {
+            log.warn("紧凑输出模式下不支持逐字段流式推送， classification.stream.enabled 不生效");
+        }
+        String userPromptTemplate = readPrompt("/classification_user_prompt.txt");
+        AtomicReference<RuleBasedClassifier> ruleClassifier = new AtomicReference<>();
+        if (rulesEnabled) {
+            ruleClassifier.set(new RuleBasedClassifier(ragSource, valueRules, objectMapper));
+            knowledgeBaseReloader.onReload(() -> {
+                try {
+                    ruleClassifier.set(new RuleBasedClassifier(ragSource, valueRules, objectMapper));
+                } catch (IOException e) {
+                    log.warn("规则预分类重建失败， 继续使用旧规则: {}", e.getMessage());
+                }
+            });
+        }
+
+        TokenCountEstimator estimator = new JTokkitTokenCountEstimator();
+        log.info("分类分级 Prompt: 系统前缀 {} tokens, 用户模板 {} tokens",
+                estimator.estimate(systemPrompt), estimator.estimate(userPromptTemplate));
 
         return new ClassificationLLMNode(
                 chatClientBuilder,
@@ -93,24 +222,40 @@ public class NodeConfig {
                 "retrievedDocs",
                 "similarityMatchResult",
                 "llmResult",
-                promptTemplate
+                systemPrompt,
+                userPromptTemplate,
+                columnCacheEnabled ? columnResultStore : null,
+                modelKey,
+                new ChunkingOptions(chunkEnabled, chunkSize, chunkThreshold, chunkParallelism),
+                streaming,
+                columnStreamRegistry,
+                new PromptEncoder(objectMapper, compactPrompt, maxSampleChars),
+                compactOutput ? new CompactOutputCodec(modelKey) : null,
+                ruleClassifier::get
         );
     }
 
+    private String readPrompt(String path) throws IOException {
+        return new String(Objects.requireNonNull(this.getClass().getResourceAsStream(path)).readAllBytes(),
+                StandardCharsets.UTF_8);
+    }
+
     /**
      * 类别验证节点
      */
     @Bean
-    public CategoryValidationNode categoryValidationNode() {
-        return new CategoryValidationNode(objectMapper);
+    public CategoryValidationNode categoryValidationNode(ColumnResultStore columnResultStore,
+                                                         @Value("${classification.column-cache.enabled:true}") boolean columnCacheEnabled) {
+        return new CategoryValidationNode(objectMapper, columnCacheEnabled ? columnResultStore : null);
     }
 
     /**
      * LLM返回结果， 结构验证节点
      */
     @Bean
-    public StructuredValidationNode structuredValidationNode() {
-        return new StructuredValidationNode(objectMapper);
+    public StructuredValidationNode structuredValidationNode(@Value("${classification.repair.max-retries:2}") int maxRetries,
+                                                             @Value("${spring.ai.openai.chat.options.model:gpt-oss-120b}") String modelKey) {
+        return new StructuredValidationNode(objectMapper, maxRetries, modelKey);
     }
 
 
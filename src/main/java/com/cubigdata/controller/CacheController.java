@@ -0,0 +1,92 @@
+package com.cubigdata.controller;
+
+import com.cubigdata.cache.CachingEmbeddingModel;
+import com.cubigdata.cache.ClassificationResultCache;
+import com.cubigdata.cache.ColumnResultStore;
+import com.cubigdata.cache.MicroBatchingEmbeddingModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 分类分级缓存管理： 命中统计与显式失效（知识库或Prompt变更后调用）
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 14:45
+ */
+@RestController
+@RequestMapping("/sec/cache")
+@Slf4j
+public class CacheController {
+    private final ClassificationResultCache resultCache;
+    private final ColumnResultStore columnResultStore;
+    private final ObjectProvider<CachingEmbeddingModel> embeddingCache;
+    private final ObjectProvider<MicroBatchingEmbeddingModel> embeddingBatcher;
+
+    public CacheController(ClassificationResultCache resultCache, ColumnResultStore columnResultStore,
+                           ObjectProvider<CachingEmbeddingModel> embeddingCache,
+                           ObjectProvider<MicroBatchingEmbeddingModel> embeddingBatcher) {
+        this.resultCache = resultCache;
+        this.columnResultStore = columnResultStore;
+        this.embeddingCache = embeddingCache;
+        this.embeddingBatcher = embeddingBatcher;
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        CachingEmbeddingModel embedding = embeddingCache.getIfAvailable();
+        MicroBatchingEmbeddingModel batcher = embeddingBatcher.getIfAvailable();
+        return Map.of("classification", resultCache.stats(), "column", columnResultStore.stats(),
+                "embedding", embedding == null ? Map.of("enabled", false) : embedding.stats(),
+                "embeddingBatch", batcher == null ? Map.of("enabled", false) : batcher.stats());
+    }
+
+    /**
+     * 按 {query, category} 失效单条结果
+     */
+    @PostMapping(value = "/classification/invalidate", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> invalidate(@RequestBody Map<String, Object> body) {
+        String fingerprint = resultCache.fingerprint(body.get("query"), body.get("category"));
+        return Map.of("fingerprint", fingerprint, "removed", resultCache.invalidate(fingerprint));
+    }
+
+    @DeleteMapping("/classification/{fingerprint}")
+    public ResponseEntity<Map<String, Object>> invalidateFingerprint(@PathVariable String fingerprint) {
+        if (!ClassificationResultCache.isFingerprint(fingerprint)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "指纹应为 64 位小写十六进制串"));
+        }
+        return ResponseEntity.ok(Map.of("fingerprint", fingerprint, "removed", resultCache.invalidate(fingerprint)));
+    }
+
+    @DeleteMapping("/classification")
+    public Map<String, Object> invalidateAll() {
+        log.info("手动清空分类结果缓存");
+        return Map.of("removed", resultCache.invalidateAll());
+    }
+
+    @DeleteMapping("/column")
+    public Map<String, Object> invalidateColumns() {
+        log.info("手动清空字段级结果缓存");
+        return Map.of("removed", columnResultStore.invalidateAll());
+    }
+
+    /**
+     * 更换向量模型或模型版本后调用， 同时清空磁盘层
+     */
+    @DeleteMapping("/embedding")
+    public Map<String, Object> invalidateEmbeddings() {
+        CachingEmbeddingModel embedding = embeddingCache.getIfAvailable();
+        log.info("手动清空向量模型缓存");
+        return Map.of("removed", embedding == null ? 0 : embedding.invalidateAll());
+    }
+}
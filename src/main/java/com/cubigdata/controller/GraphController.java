@@ -1,14 +1,26 @@
 package com.cubigdata.controller;
 
+import com.alibaba.cloud.ai.graph.CompileConfig;
 import com.alibaba.cloud.ai.graph.CompiledGraph;
 import com.alibaba.cloud.ai.graph.NodeOutput;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.checkpoint.BaseCheckpointSaver;
+import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
+import com.alibaba.cloud.ai.graph.checkpoint.constant.SaverEnum;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.cubigdata.cache.ClassificationResultCache;
+import com.cubigdata.controller.qry.ClftItemParam;
+import com.cubigdata.workflow.checkpoint.BoundedMemorySaver;
+import com.cubigdata.workflow.nodes.StructuredValidationNode;
+import com.cubigdata.workflow.support.ColumnStreamRegistry;
+import com.cubigdata.workflow.support.DeadlineNodeAction;
+import com.cubigdata.workflow.support.DegradableNodeAction;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.codec.ServerSentEvent;
@@ -18,9 +30,17 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author yHong
@@ -35,33 +55,118 @@ public class GraphController {
 
     private final CompiledGraph compiledGraph;
 
-    public GraphController(ObjectMapper objectMapper, @Qualifier("secGraph") StateGraph stateGraph) throws GraphStateException {
+    /**
+     * 无状态调用使用的图， 关闭 checkpoint 时不保留任何中间状态
+     */
+    private final CompiledGraph statelessGraph;
+
+    private final BoundedMemorySaver checkpointSaver;
+
+    /**
+     * 表级结果缓存， 为 null 表示未开启
+     */
+    private final ClassificationResultCache resultCache;
+
+    private final ColumnStreamRegistry columnStreamRegistry;
+
+    /**
+     * 批量打标默认并发度
+     */
+    private final int batchParallelism;
+
+    /**
+     * 批量打标并发度上限， 防止单个请求占满下游LLM配额
+     */
+    private final int batchMaxParallelism;
+
+    /**
+     * 单次请求的整体截止时间， 调用方指定的超时不能超过该值
+     */
+    private final Duration requestTimeout;
+
+    public GraphController(ObjectMapper objectMapper, @Qualifier("secGraph") StateGraph stateGraph,
+                           @Value("${workflow.batch.parallelism:8}") int batchParallelism,
+                           @Value("${workflow.batch.max-parallelism:32}") int batchMaxParallelism,
+                           BoundedMemorySaver checkpointSaver,
+                           @Value("${workflow.checkpoint.enabled:true}") boolean checkpointEnabled,
+                           @Value("${workflow.checkpoint.stateless-call:false}") boolean statelessCall,
+                           ClassificationResultCache resultCache,
+                           @Value("${classification.cache.enabled:true}") boolean cacheEnabled,
+                           ColumnStreamRegistry columnStreamRegistry,
+                           @Value("${workflow.timeout.request:180s}") Duration requestTimeout) throws GraphStateException {
         this.objectMapper = objectMapper;
-        this.compiledGraph = stateGraph.compile();
+        this.columnStreamRegistry = columnStreamRegistry;
+        this.resultCache = cacheEnabled ? resultCache : null;
+        this.checkpointSaver = checkpointSaver;
+        this.compiledGraph = stateGraph.compile(compileConfig(checkpointEnabled ? checkpointSaver : null));
+        this.statelessGraph = statelessCall && checkpointEnabled ? stateGraph.compile(compileConfig(null)) : compiledGraph;
+        this.batchParallelism = batchParallelism;
+        this.batchMaxParallelism = batchMaxParallelism;
+        this.requestTimeout = requestTimeout;
     }
 
     @PostMapping(value = "/call", consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity simpleChat(@RequestBody Map<String, Object> body,
-                                     @RequestParam(value = "thread_id", defaultValue = "yhong", required = false) String threadId) throws Exception {
-        RunnableConfig runnableConfig = RunnableConfig.builder().threadId(threadId).build();
+                                     @RequestParam(value = "thread_id", required = false) String threadId,
+                                     @RequestParam(value = "timeout_ms", required = false) Long timeoutMs) throws Exception {
+        Map<String, Object> query = (Map<String, Object>) body.get("query");
+        Object category = body.get("category");
+        return ResponseEntity.ok(classify(query, category, resolveThreadId(threadId), generated(threadId), deadline(timeoutMs)));
+    }
+
+    /**
+     * 非阻塞调用： 工作流在节点调度器上异步推进， 不占用请求线程
+     */
+    @PostMapping(value = "/call/reactive", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Object>> reactiveChat(@RequestBody Map<String, Object> body,
+                                                     @RequestParam(value = "thread_id", required = false) String threadId,
+                                                     @RequestParam(value = "timeout_ms", required = false) Long timeoutMs) {
         Map<String, Object> query = (Map<String, Object>) body.get("query");
-        String queryStr = objectMapper.writeValueAsString(query);
         Object category = body.get("category");
-        Optional<OverAllState> res = compiledGraph.call(Map.of("query", queryStr, "category", category), runnableConfig);
-        Optional<Object> correctedResult = res.flatMap(overAllState -> overAllState.value("corrected_result"));
-        return ResponseEntity.ok(correctedResult.orElse("no result"));
+        return classifyReactive(query, category, resolveThreadId(threadId), generated(threadId), deadline(timeoutMs))
+                .map(ResponseEntity::ok);
     }
 
     @PostMapping(value = "/flux", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<ServerSentEvent<String>> fluxChat(@RequestBody Map<String, Object> body,
-                                                    @RequestParam(value = "thread_id", defaultValue = "yhong", required = false) String threadId) throws Exception {
-        RunnableConfig runnableConfig = RunnableConfig.builder().threadId(threadId).build();
+                                                    @RequestParam(value = "thread_id", required = false) String threadId,
+                                                    @RequestParam(value = "timeout_ms", required = false) Long timeoutMs) throws Exception {
+        RunnableConfig runnableConfig = RunnableConfig.builder().threadId(resolveThreadId(threadId)).build();
+        boolean clearCheckpoint = generated(threadId);
         Map<String,Object> query = (Map<String,Object>) body.get("query");
         String queryStr = objectMapper.writeValueAsString(query);
         Object category = body.get("category");
-        Flux<NodeOutput> resultFuture = compiledGraph.fluxStream(Map.of("query", queryStr, "category", category), runnableConfig);
+        if (resultCache != null) {
+            String cached = resultCache.get(resultCache.fingerprint(query, category));
+            if (cached != null) {
+                return Flux.just(ServerSentEvent.<String>builder()
+                                .event("cache_hit")
+                                .data(cached)
+                                .build(),
+                        ServerSentEvent.<String>builder()
+                                .event("complete")
+                                .data("工作流执行完成（命中缓存）")
+                                .build());
+            }
+        }
+        // 分类节点逐字段推送的事件， 与节点事件合并输出
+        String streamId = UUID.randomUUID().toString();
+        Sinks.Many<ServerSentEvent<String>> columnSink = Sinks.many().unicast().onBackpressureBuffer();
+        columnStreamRegistry.register(streamId, column -> columnSink.emitNext(columnEvent(column),
+                Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(200))));
+
+        Map<String, Object> inputs = inputs(queryStr, category, deadline(timeoutMs));
+        inputs.put("stream_id", streamId);
+        Flux<NodeOutput> resultFuture = compiledGraph.fluxStream(inputs, runnableConfig);
 
-        return resultFuture
+        Flux<ServerSentEvent<String>> nodeEvents = resultFuture
+                .doOnNext(nodeOutput -> {
+                    if (resultCache != null && "categoryValidation".equals(nodeOutput.node())
+                            && cacheable(nodeOutput.state())
+                            && nodeOutput.state().value("corrected_result").orElse(null) instanceof String result) {
+                        resultCache.put(resultCache.fingerprint(query, category), result);
+                    }
+                })
                 .map(nodeOutput -> {
                     String nodeName = nodeOutput.node();
                     OverAllState state = nodeOutput.state();
@@ -86,9 +191,198 @@ public class GraphController {
                             .event("error")
                             .data("处理失败: " + throwable.getMessage())
                             .build());
+                })
+                .doFinally(signal -> {
+                    columnStreamRegistry.unregister(streamId);
+                    columnSink.tryEmitComplete();
+                    if (clearCheckpoint) {
+                        checkpointSaver.clear(runnableConfig);
+                    }
+                });
+
+        return Flux.merge(columnSink.asFlux(), nodeEvents);
+    }
+
+    private ServerSentEvent<String> columnEvent(Map<String, Object> column) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(column);
+        } catch (Exception e) {
+            data = String.valueOf(column);
+        }
+        return ServerSentEvent.<String>builder()
+                .event("column_result")
+                .id(String.valueOf(column.get("columnName")))
+                .data(data)
+                .build();
+    }
+
+    /**
+     * 批量分类分级： 每张表使用独立的threadId并发执行， 单表完成即推送结果
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> batchChat(@RequestBody List<ClftItemParam> items,
+                                                   @RequestParam(value = "parallelism", required = false) Integer parallelism) {
+        int concurrency = Math.max(1, Math.min(parallelism != null ? parallelism : batchParallelism, batchMaxParallelism));
+        String batchId = UUID.randomUUID().toString();
+        AtomicInteger failed = new AtomicInteger();
+        log.info("批量分类分级开始: batchId={}, 表数量={}, 并发度={}", batchId, items.size(), concurrency);
+
+        return Flux.range(0, items.size())
+                .flatMap(index -> classifyReactive(items.get(index).query(), items.get(index).category(), batchId + "-" + index, true, deadline(null))
+                        .map(result -> batchEvent("table_result", index, result))
+                        .onErrorResume(throwable -> {
+                            log.error("批量分类分级单表失败: batchId={}, index={}", batchId, index, throwable);
+                            failed.incrementAndGet();
+                            return Mono.just(batchEvent("table_error", index, "处理失败: " + throwable.getMessage()));
+                        }), concurrency)
+                .concatWith(Mono.fromSupplier(() -> ServerSentEvent.<String>builder()
+                        .event("complete")
+                        .data(String.format("批量工作流执行完成: 共%d张表, 失败%d张", items.size(), failed.get()))
+                        .build()));
+    }
+
+    /**
+     * 单表分类分级： 先查结果缓存， 未命中再执行工作流并回写缓存
+     *
+     * @param clearCheckpoint 执行结束后是否清除该 threadId 的 checkpoint， 调用方指定的 threadId 需保留历史
+     */
+    private Object classify(Map<String, Object> query, Object category, String threadId, boolean clearCheckpoint,
+                            long deadline) throws Exception {
+        String fingerprint = null;
+        if (resultCache != null) {
+            fingerprint = resultCache.fingerprint(query, category);
+            String cached = resultCache.get(fingerprint);
+            if (cached != null) {
+                log.info("命中分类结果缓存: {}", fingerprint);
+                return cached;
+            }
+        }
+
+        RunnableConfig runnableConfig = RunnableConfig.builder().threadId(threadId).build();
+        String queryStr = objectMapper.writeValueAsString(query);
+        try {
+            Optional<OverAllState> res = statelessGraph.call(inputs(queryStr, category, deadline), runnableConfig);
+            Optional<Object> correctedResult = res.flatMap(overAllState -> overAllState.value("corrected_result"));
+            if (fingerprint != null && res.map(this::cacheable).orElse(false)
+                    && correctedResult.orElse(null) instanceof String result) {
+                resultCache.put(fingerprint, result);
+            }
+            return correctedResult.orElse("no result");
+        } finally {
+            if (clearCheckpoint) {
+                checkpointSaver.clear(runnableConfig);
+            }
+        }
+    }
+
+    /**
+     * 单表分类分级的非阻塞版本， 语义与 {@link #classify} 一致
+     */
+    private Mono<Object> classifyReactive(Map<String, Object> query, Object category, String threadId,
+                                          boolean clearCheckpoint, long deadline) {
+        String fingerprint = resultCache != null ? resultCache.fingerprint(query, category) : null;
+        if (fingerprint != null) {
+            String cached = resultCache.get(fingerprint);
+            if (cached != null) {
+                log.info("命中分类结果缓存: {}", fingerprint);
+                return Mono.just(cached);
+            }
+        }
+
+        RunnableConfig runnableConfig = RunnableConfig.builder().threadId(threadId).build();
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(query))
+                .flatMap(queryStr -> statelessGraph.fluxStream(inputs(queryStr, category, deadline), runnableConfig).last())
+                .map(nodeOutput -> {
+                    Optional<Object> correctedResult = nodeOutput.state().value("corrected_result");
+                    if (fingerprint != null && cacheable(nodeOutput.state())
+                            && correctedResult.orElse(null) instanceof String result) {
+                        resultCache.put(fingerprint, result);
+                    }
+                    return correctedResult.orElse("no result");
+                })
+                .doFinally(signal -> {
+                    if (clearCheckpoint) {
+                        checkpointSaver.clear(runnableConfig);
+                    }
                 });
     }
 
+    /**
+     * 降级执行（缺少部分上下文）与超过重试预算的兜底结果不写入缓存
+     */
+    private boolean cacheable(OverAllState state) {
+        return DegradableNodeAction.degradedInputs(state.data()).isEmpty()
+                && !Boolean.TRUE.equals(state.value(StructuredValidationNode.FALLBACK_KEY).orElse(false));
+    }
+
+    /**
+     * 每次执行的输入； 调用方传入的 threadId 会保留 checkpoint 并合并进下一次执行，
+     * 因此重试计数、兜底标记与待补全字段每次都显式重置， 不沿用上一次的状态
+     */
+    static Map<String, Object> inputs(String queryStr, Object category, long deadline) {
+        Map<String, Object> inputs = new HashMap<>();
+        inputs.put("query", queryStr);
+        inputs.put("category", category);
+        inputs.put(DeadlineNodeAction.DEADLINE_KEY, deadline);
+        inputs.put("retry_count", 0);
+        inputs.put(StructuredValidationNode.FALLBACK_KEY, false);
+        inputs.put("repair_columns", List.of());
+        return inputs;
+    }
+
+    /**
+     * 请求截止时间（毫秒时间戳）， 随工作流状态传递给各节点
+     */
+    private long deadline(Long timeoutMs) {
+        long timeout = requestTimeout.toMillis();
+        if (timeoutMs != null && timeoutMs > 0) {
+            timeout = Math.min(timeout, timeoutMs);
+        }
+        return System.currentTimeMillis() + timeout;
+    }
+
+    /**
+     * 未指定 threadId 时为每次请求生成独立的 threadId， 避免并发请求共享 checkpoint
+     */
+    private String resolveThreadId(String threadId) {
+        return generated(threadId) ? UUID.randomUUID().toString() : threadId;
+    }
+
+    /**
+     * threadId 是否由服务端生成； 生成的 threadId 在请求结束后清除 checkpoint， 调用方传入的保留供其查询历史
+     */
+    private static boolean generated(String threadId) {
+        return threadId == null || threadId.isBlank();
+    }
+
+    private static CompileConfig compileConfig(BaseCheckpointSaver saver) {
+        SaverConfig.Builder saverConfig = SaverConfig.builder();
+        if (saver != null) {
+            saverConfig.register(SaverEnum.MEMORY.getValue(), saver);
+        }
+        return CompileConfig.builder()
+                .saverConfig(saverConfig.build())
+                .build();
+    }
+
+    private ServerSentEvent<String> batchEvent(String event, int index, Object result) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("index", index);
+        payload.put("result", result);
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(payload);
+        } catch (Exception e) {
+            data = String.valueOf(payload);
+        }
+        return ServerSentEvent.<String>builder()
+                .event(event)
+                .id(String.valueOf(index))
+                .data(data)
+                .build();
+    }
+
     /**
      * 提取节点输出内容
      */
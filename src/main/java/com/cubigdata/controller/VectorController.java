@@ -0,0 +1,228 @@
+package com.cubigdata.controller;
+
+import com.cubigdata.vector.HnswIndex;
+import com.cubigdata.vector.HnswVectorStore;
+import com.cubigdata.vector.KnowledgeBaseReloader;
+import com.cubigdata.vector.MappedVectorStore;
+import com.cubigdata.vector.QuantizedIndex;
+import com.cubigdata.vector.ReloadableVectorStore;
+import com.cubigdata.vector.VectorMath;
+import com.cubigdata.vector.VectorQuantizer;
+import com.cubigdata.vector.VectorSearchBenchmark;
+import com.cubigdata.vector.VectorSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * 知识库向量存储管理： 统计信息、热加载与检索召回率/延迟基准（HNSW、量化）
+ * <p>
+ * 基准接口会调用远端向量模型为查询向量化， 默认关闭（rag.benchmark.enabled）， 只用于预发环境调参；
+ * 离线基准见 src/jmh， 索引正确性由单元测试覆盖。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 22:30
+ */
+@RestController
+@RequestMapping("/sec/vector")
+@Slf4j
+public class VectorController {
+    private static final int MAX_BENCHMARK_K = 100;
+    private static final int MAX_EF = 1024;
+    private static final int MAX_BENCHMARK_VARIANTS = 8;
+    private static final int MAX_RESCORE = 16;
+
+    private final ReloadableVectorStore classificationVectorStore;
+    private final KnowledgeBaseReloader knowledgeBaseReloader;
+    private final EmbeddingModel embeddingModel;
+    private final Resource ragSource;
+
+    /**
+     * 是否开放基准接口
+     */
+    private final boolean benchmarkEnabled;
+
+    /**
+     * 单次基准的查询条数上限， 每条查询需一次远端向量化
+     */
+    private final int benchmarkMaxQueries;
+
+    public VectorController(@Qualifier("classificationVectorStore") ReloadableVectorStore classificationVectorStore,
+                            KnowledgeBaseReloader knowledgeBaseReloader,
+                            EmbeddingModel embeddingModel,
+                            @Value("${rag.source:classpath:rag/rag_friendly_classification.txt}") Resource ragSource,
+                            @Value("${rag.benchmark.enabled:false}") boolean benchmarkEnabled,
+                            @Value("${rag.benchmark.max-queries:100}") int benchmarkMaxQueries) {
+        this.classificationVectorStore = classificationVectorStore;
+        this.knowledgeBaseReloader = knowledgeBaseReloader;
+        this.embeddingModel = embeddingModel;
+        this.ragSource = ragSource;
+        this.benchmarkEnabled = benchmarkEnabled;
+        this.benchmarkMaxQueries = benchmarkMaxQueries;
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        VectorStore classificationVectorStore = this.classificationVectorStore.current();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("store", classificationVectorStore.getClass().getSimpleName());
+        if (classificationVectorStore instanceof HnswVectorStore hnsw) {
+            stats.put("documents", hnsw.size());
+            stats.put("dimensions", hnsw.index().dimensions());
+            stats.put("efSearch", hnsw.index().efSearch());
+        } else if (classificationVectorStore instanceof MappedVectorStore mapped) {
+            stats.put("documents", mapped.size());
+            QuantizedIndex quantized = mapped.quantizedIndex();
+            if (quantized != null) {
+                stats.put("quantization", quantized.quantizer().type());
+                stats.put("bytesPerVector", quantized.quantizer().codeSize());
+                stats.put("quantizedBytes", quantized.memoryBytes());
+            }
+        }
+        stats.put("reload", knowledgeBaseReloader.stats());
+        return stats;
+    }
+
+    /**
+     * 重新加载知识库（原文或向量文件更新后调用）， 加载完成后原子切换， 检索不中断
+     */
+    @PostMapping("/reload")
+    public Mono<Map<String, Object>> reload() {
+        log.info("手动触发知识库重新加载");
+        return Mono.fromFuture(knowledgeBaseReloader.reload("manual"));
+    }
+
+    /**
+     * 以知识库原文中随机抽取的行作为查询， 对比 HNSW 与暴力检索的召回率与延迟
+     */
+    @PostMapping("/benchmark")
+    public ResponseEntity<Object> benchmark(@RequestParam(value = "queries", defaultValue = "50") int queryCount,
+                                            @RequestParam(value = "k", defaultValue = "10") int k,
+                                            @RequestParam(value = "ef", defaultValue = "16,32,64,128") List<Integer> efValues) throws IOException {
+        ResponseEntity<Object> rejected = checkBenchmark(queryCount, k);
+        if (rejected != null) {
+            return rejected;
+        }
+        if (efValues.isEmpty() || efValues.size() > MAX_BENCHMARK_VARIANTS
+                || efValues.stream().anyMatch(ef -> ef < 1 || ef > MAX_EF)) {
+            return ResponseEntity.badRequest().body(Map.of("message",
+                    "ef 最多 " + MAX_BENCHMARK_VARIANTS + " 个取值， 每个取值范围 1-" + MAX_EF));
+        }
+        VectorStore classificationVectorStore = this.classificationVectorStore.current();
+        if (!(classificationVectorStore instanceof HnswVectorStore hnsw)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "当前向量存储不是 HNSW， 请设置 rag.store=hnsw"));
+        }
+        List<float[]> queries = sampleQueries(queryCount);
+        VectorSearchBenchmark.Report report = VectorSearchBenchmark.runHnsw(hnsw.index(), queries, k, efValues);
+        log.info("向量检索基准完成: {}", report);
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * 以知识库原文中随机抽取的行作为查询， 对比 int8 / PQ 量化检索（含不同重打分倍数）与 float 精确检索的召回率与延迟
+     */
+    @PostMapping("/benchmark/quantization")
+    public ResponseEntity<Object> quantizationBenchmark(@RequestParam(value = "queries", defaultValue = "50") int queryCount,
+                                                        @RequestParam(value = "k", defaultValue = "10") int k,
+                                                        @RequestParam(value = "types", defaultValue = "int8,pq") List<String> types,
+                                                        @RequestParam(value = "rescore", defaultValue = "1,2,4") List<Integer> rescoreFactors,
+                                                        @RequestParam(value = "pq_subspaces", defaultValue = "0") int pqSubspaces) throws IOException {
+        ResponseEntity<Object> rejected = checkBenchmark(queryCount, k);
+        if (rejected != null) {
+            return rejected;
+        }
+        if (rescoreFactors.isEmpty() || rescoreFactors.size() > MAX_BENCHMARK_VARIANTS
+                || rescoreFactors.stream().anyMatch(factor -> factor < 1 || factor > MAX_RESCORE)) {
+            return ResponseEntity.badRequest().body(Map.of("message",
+                    "rescore 最多 " + MAX_BENCHMARK_VARIANTS + " 个取值， 每个取值范围 1-" + MAX_RESCORE));
+        }
+        List<VectorQuantizer.Type> quantizerTypes;
+        try {
+            quantizerTypes = types.stream().map(VectorQuantizer.Type::of).distinct().toList();
+        } catch (IllegalArgumentException e) {
+            quantizerTypes = List.of();
+        }
+        if (quantizerTypes.isEmpty() || quantizerTypes.contains(VectorQuantizer.Type.NONE)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "types 取值为 int8、pq"));
+        }
+        VectorStore classificationVectorStore = this.classificationVectorStore.current();
+        int count;
+        int dimensions;
+        IntFunction<float[]> vectors;
+        QuantizedIndex.ExactScorer exact;
+        if (classificationVectorStore instanceof MappedVectorStore mapped && mapped.snapshot() != null) {
+            VectorSnapshot snapshot = mapped.snapshot();
+            count = snapshot.count();
+            dimensions = snapshot.dimensions();
+            vectors = snapshot::vector;
+            exact = snapshot::dot;
+        } else if (classificationVectorStore instanceof HnswVectorStore hnsw) {
+            HnswIndex index = hnsw.index();
+            count = index.size();
+            dimensions = index.dimensions();
+            vectors = index::vector;
+            exact = (row, query) -> VectorMath.dot(index.vector(row), query);
+        } else {
+            return ResponseEntity.badRequest().body(Map.of("message", "当前向量存储不支持量化基准， 请设置 rag.store=mapped 或 hnsw"));
+        }
+        if (pqSubspaces < 0 || pqSubspaces > dimensions) {
+            return ResponseEntity.badRequest().body(Map.of("message", "pq_subspaces 取值范围 0-" + dimensions + "（0 表示按维度自动选择）"));
+        }
+        List<float[]> queries = sampleQueries(queryCount);
+        VectorSearchBenchmark.Report report = VectorSearchBenchmark.runQuantized(count, dimensions, vectors, exact,
+                queries, k, quantizerTypes, rescoreFactors, pqSubspaces);
+        log.info("向量量化基准完成: {}", report);
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * 基准接口开关与通用参数校验， 通过时返回 null
+     */
+    private ResponseEntity<Object> checkBenchmark(int queryCount, int k) {
+        if (!benchmarkEnabled) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "基准接口未开启， 请设置 rag.benchmark.enabled=true"));
+        }
+        if (queryCount < 1 || queryCount > benchmarkMaxQueries || k < 1 || k > MAX_BENCHMARK_K) {
+            return ResponseEntity.badRequest().body(Map.of("message",
+                    "queries 取值范围 1-" + benchmarkMaxQueries + ", k 取值范围 1-" + MAX_BENCHMARK_K));
+        }
+        return null;
+    }
+
+    private List<float[]> sampleQueries(int count) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : ragSource.getContentAsString(StandardCharsets.UTF_8).split("\\R")) {
+            if (line.strip().length() >= 4) {
+                lines.add(line.strip());
+            }
+        }
+        Collections.shuffle(lines, new Random(42));
+        List<String> sampled = lines.subList(0, Math.min(Math.max(1, count), lines.size()));
+        List<float[]> queries = new ArrayList<>(sampled.size());
+        for (float[] embedding : embeddingModel.embed(sampled)) {
+            queries.add(VectorMath.normalize(embedding));
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,15 @@
+package com.cubigdata.controller.qry;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * 批量分类分级的单表请求项
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 10:12
+ */
+public record ClftItemParam(
+        Map<String, Object> query,
+        Object category) implements Serializable {
+}
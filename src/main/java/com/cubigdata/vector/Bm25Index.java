@@ -0,0 +1,198 @@
+package com.cubigdata.vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 内存 BM25 倒排索引
+ * <p>
+ * 中文按连续汉字切二元组（单字成段时保留单字）， 英文与数字按连续字母数字切词并转小写。
+ * 另外按 “字段名称是“xxx”” 抽取知识库中的字段名， 供字段名精确命中。 构建后只读， 可并发检索。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 03:30
+ */
+public class Bm25Index {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Pattern FIELD_NAME = Pattern.compile("字段名称是“([^”]+)”");
+
+    /**
+     * 检索结果， doc 为文档编号
+     */
+    public record Scored(int doc, float score) {
+    }
+
+    private final String[] ids;
+    private final String[] texts;
+    private final int[] lengths;
+    private final double averageLength;
+    private final Map<String, int[]> postingDocs;
+    private final Map<String, int[]> postingFreqs;
+    private final Map<String, int[]> fieldNames;
+
+    private Bm25Index(String[] ids, String[] texts) {
+        this.ids = ids;
+        this.texts = texts;
+        this.lengths = new int[ids.length];
+        Map<String, List<int[]>> postings = new HashMap<>();
+        Map<String, Set<Integer>> fields = new HashMap<>();
+        long totalLength = 0;
+        for (int doc = 0; doc < texts.length; doc++) {
+            List<String> tokens = tokenize(texts[doc]);
+            lengths[doc] = tokens.size();
+            totalLength += tokens.size();
+            Map<String, Integer> freqs = new HashMap<>();
+            for (String token : tokens) {
+                freqs.merge(token, 1, Integer::sum);
+            }
+            for (Map.Entry<String, Integer> entry : freqs.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(new int[]{doc, entry.getValue()});
+            }
+            Matcher matcher = FIELD_NAME.matcher(texts[doc] == null ? "" : texts[doc]);
+            while (matcher.find()) {
+                fields.computeIfAbsent(normalize(matcher.group(1)), key -> new TreeSet<>()).add(doc);
+            }
+        }
+        this.averageLength = texts.length == 0 ? 0 : (double) totalLength / texts.length;
+        this.postingDocs = new HashMap<>(postings.size() * 2);
+        this.postingFreqs = new HashMap<>(postings.size() * 2);
+        postings.forEach((token, list) -> {
+            int[] docs = new int[list.size()];
+            int[] tfs = new int[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                docs[i] = list.get(i)[0];
+                tfs[i] = list.get(i)[1];
+            }
+            postingDocs.put(token, docs);
+            postingFreqs.put(token, tfs);
+        });
+        this.fieldNames = new HashMap<>(fields.size() * 2);
+        fields.forEach((name, docs) -> fieldNames.put(name, docs.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * @param documents 文档 id 到文本
+     */
+    public static Bm25Index build(Map<String, String> documents) {
+        String[] ids = new String[documents.size()];
+        String[] texts = new String[documents.size()];
+        int i = 0;
+        for (Map.Entry<String, String> entry : documents.entrySet()) {
+            ids[i] = entry.getKey();
+            texts[i++] = entry.getValue();
+        }
+        return new Bm25Index(ids, texts);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public String id(int doc) {
+        return ids[doc];
+    }
+
+    public String text(int doc) {
+        return texts[doc];
+    }
+
+    /**
+     * BM25 得分最高的 k 个文档， 按得分降序； 与查询无共同词的文档不返回
+     */
+    public List<Scored> search(String query, int k) {
+        if (ids.length == 0 || k <= 0) {
+            return List.of();
+        }
+        float[] scores = new float[ids.length];
+        for (String token : new TreeSet<>(tokenize(query))) {
+            int[] docs = postingDocs.get(token);
+            if (docs == null) {
+                continue;
+            }
+            int[] tfs = postingFreqs.get(token);
+            double idf = Math.log(1 + (ids.length - docs.length + 0.5) / (docs.length + 0.5));
+            for (int i = 0; i < docs.length; i++) {
+                double norm = K1 * (1 - B + B * lengths[docs[i]] / averageLength);
+                scores[docs[i]] += (float) (idf * tfs[i] * (K1 + 1) / (tfs[i] + norm));
+            }
+        }
+        PriorityQueue<Scored> top = new PriorityQueue<>(k + 1, (a, b) -> Float.compare(a.score(), b.score()));
+        for (int doc = 0; doc < scores.length; doc++) {
+            if (scores[doc] <= 0) {
+                continue;
+            }
+            if (top.size() < k) {
+                top.add(new Scored(doc, scores[doc]));
+            } else if (scores[doc] > top.peek().score()) {
+                top.poll();
+                top.add(new Scored(doc, scores[doc]));
+            }
+        }
+        List<Scored> result = new ArrayList<>(top);
+        result.sort((a, b) -> Float.compare(b.score(), a.score()));
+        return result;
+    }
+
+    /**
+     * 字段名与 term 完全一致（忽略大小写与空白）的文档编号
+     */
+    public int[] exact(String term) {
+        if (term == null || term.isBlank()) {
+            return new int[0];
+        }
+        int[] docs = fieldNames.get(normalize(term));
+        return docs == null ? new int[0] : Arrays.copyOf(docs, docs.length);
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        int n = text.length();
+        while (i < n) {
+            char c = text.charAt(i);
+            if (isCjk(c)) {
+                int start = i;
+                while (i < n && isCjk(text.charAt(i))) {
+                    i++;
+                }
+                if (i - start == 1) {
+                    tokens.add(text.substring(start, i));
+                }
+                for (int j = start; j + 1 < i; j++) {
+                    tokens.add(text.substring(j, j + 2));
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < n && Character.isLetterOrDigit(text.charAt(i)) && !isCjk(text.charAt(i))) {
+                    i++;
+                }
+                tokens.add(text.substring(start, i).toLowerCase());
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isCjk(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+
+    private static String normalize(String term) {
+        return term.strip().replaceAll("\\s+", "").toLowerCase();
+    }
+}
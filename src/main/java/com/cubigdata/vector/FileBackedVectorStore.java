@@ -0,0 +1,58 @@
+package com.cubigdata.vector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+/**
+ * 可从文件加载/保存的向量存储
+ * <p>
+ * JSON 格式与 SimpleVectorStore 兼容， 写临时文件后原子替换； 二进制快照见 {@link VectorSnapshot}。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 23:20
+ */
+public interface FileBackedVectorStore {
+
+    void load(File json);
+
+    void save(File json);
+
+    /**
+     * 从二进制快照加载， 不解析 JSON
+     */
+    void loadSnapshot(VectorSnapshot snapshot);
+
+    /**
+     * 将当前全部文档写为二进制快照
+     */
+    void saveSnapshot(Path path) throws IOException;
+
+    /**
+     * 当前有效文档的 id -> 文本， 用于增量导入时比对内容
+     */
+    Map<String, String> contents();
+
+    @FunctionalInterface
+    interface FileWrite {
+        void write(File file) throws IOException;
+    }
+
+    /**
+     * 在目标文件所在目录写临时文件后原子替换， 写入中途崩溃不会留下截断的目标文件
+     */
+    static void replaceAtomically(File target, FileWrite write) throws IOException {
+        Path dir = target.toPath().toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, target.getName() + "_", ".tmp");
+        try {
+            write.write(tmp.toFile());
+            Files.move(tmp, target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package com.cubigdata.vector;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内存 HNSW（Hierarchical Navigable Small World）近似最近邻索引
+ * <p>
+ * 节点以插入顺序编号， 向量需预先归一化， 相似度为点积。 删除只做标记， 被删除节点仍参与图遍历但不出现在结果中。
+ * 写操作互斥， 读操作可并发。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 22:30
+ */
+public class HnswIndex {
+
+    private static final int MAGIC = 0x484E5357;
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * 检索结果， node 为节点编号
+     */
+    public record Scored(int node, float score) {
+    }
+
+    private static final Comparator<Scored> BY_SCORE = Comparator.comparingDouble(Scored::score);
+
+    private final int m;
+    private final int maxConnections0;
+    private final int efConstruction;
+    private volatile int efSearch;
+    private final double levelMultiplier;
+    private final Random random;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int dimensions = -1;
+    private float[][] vectors = new float[16][];
+    private int[] levels = new int[16];
+    private int[][][] links = new int[16][][];
+    private int[][] linkCounts = new int[16][];
+    private final BitSet deleted = new BitSet();
+    private int size;
+    private int deletedCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(int m, int efConstruction, int efSearch) {
+        this(m, efConstruction, efSearch, 42L);
+    }
+
+    public HnswIndex(int m, int efConstruction, int efSearch, long seed) {
+        this.m = Math.max(2, m);
+        this.maxConnections0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.efSearch = Math.max(1, efSearch);
+        this.levelMultiplier = 1 / Math.log(this.m);
+        this.random = new Random(seed);
+    }
+
+    /**
+     * 插入归一化后的向量， 返回节点编号
+     */
+    public int add(float[] vector) {
+        lock.writeLock().lock();
+        try {
+            if (dimensions < 0) {
+                dimensions = vector.length;
+            } else if (vector.length != dimensions) {
+                throw new IllegalArgumentException("向量维度不一致: 期望 " + dimensions + ", 实际 " + vector.length);
+            }
+            int node = size;
+            int level = (int) Math.floor(-Math.log(1 - random.nextDouble()) * levelMultiplier);
+            ensureCapacity(node + 1);
+            vectors[node] = vector;
+            levels[node] = level;
+            links[node] = new int[level + 1][];
+            linkCounts[node] = new int[level + 1];
+            for (int lc = 0; lc <= level; lc++) {
+                links[node][lc] = new int[maxConnections(lc)];
+            }
+            size++;
+
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return node;
+            }
+
+            int ep = entryPoint;
+            for (int lc = maxLevel; lc > level; lc--) {
+                ep = greedyClosest(vector, ep, lc);
+            }
+            List<Scored> entryPoints = List.of(new Scored(ep, VectorMath.dot(vector, vectors[ep])));
+            for (int lc = Math.min(level, maxLevel); lc >= 0; lc--) {
+                List<Scored> candidates = searchLayer(vector, entryPoints, efConstruction, lc);
+                List<Scored> neighbours = selectNeighbours(candidates, m);
+                for (Scored neighbour : neighbours) {
+                    links[node][lc][linkCounts[node][lc]++] = neighbour.node();
+                    connect(neighbour.node(), node, lc);
+                }
+                entryPoints = candidates;
+            }
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = node;
+            }
+            return node;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void markDeleted(int node) {
+        lock.writeLock().lock();
+        try {
+            if (node >= 0 && node < size && !deleted.get(node)) {
+                deleted.set(node);
+                deletedCount++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isDeleted(int node) {
+        lock.readLock().lock();
+        try {
+            return deleted.get(node);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 检索与 query 最相似的 k 个未删除节点， 按相似度降序
+     */
+    public List<Scored> search(float[] query, int k) {
+        return search(query, k, efSearch);
+    }
+
+    public List<Scored> search(float[] query, int k, int ef) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || k <= 0) {
+                return List.of();
+            }
+            int ep = entryPoint;
+            for (int lc = maxLevel; lc > 0; lc--) {
+                ep = greedyClosest(query, ep, lc);
+            }
+            // 被删除节点占位， 按删除比例放大候选集
+            int effectiveEf = Math.max(ef, k);
+            if (deletedCount > 0) {
+                effectiveEf = (int) Math.min(size, (long) effectiveEf * size / Math.max(1, size - deletedCount));
+            }
+            List<Scored> candidates = searchLayer(query, List.of(new Scored(ep, VectorMath.dot(query, vectors[ep]))), effectiveEf, 0);
+            List<Scored> results = new ArrayList<>(k);
+            for (Scored candidate : candidates) {
+                if (!deleted.get(candidate.node())) {
+                    results.add(candidate);
+                    if (results.size() == k) {
+                        break;
+                    }
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 精确检索， 用于召回率基准
+     */
+    public List<Scored> exactSearch(float[] query, int k) {
+        lock.readLock().lock();
+        try {
+            PriorityQueue<Scored> best = new PriorityQueue<>(BY_SCORE);
+            for (int node = 0; node < size; node++) {
+                if (deleted.get(node)) {
+                    continue;
+                }
+                best.offer(new Scored(node, VectorMath.dot(query, vectors[node])));
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+            List<Scored> results = new ArrayList<>(best);
+            results.sort(BY_SCORE.reversed());
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public float[] vector(int node) {
+        lock.readLock().lock();
+        try {
+            return vectors[node];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int liveSize() {
+        lock.readLock().lock();
+        try {
+            return size - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    public int efSearch() {
+        return efSearch;
+    }
+
+    public void efSearch(int efSearch) {
+        this.efSearch = Math.max(1, efSearch);
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? maxConnections0 : m;
+    }
+
+    private int greedyClosest(float[] query, int ep, int level) {
+        int current = ep;
+        float currentScore = VectorMath.dot(query, vectors[current]);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] neighbours = links[current][level];
+            int count = linkCounts[current][level];
+            for (int i = 0; i < count; i++) {
+                int candidate = neighbours[i];
+                float score = VectorMath.dot(query, vectors[candidate]);
+                if (score > currentScore) {
+                    currentScore = score;
+                    current = candidate;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 单层 beam search， 返回按相似度降序的候选
+     */
+    private List<Scored> searchLayer(float[] query, List<Scored> entryPoints, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Scored> candidates = new PriorityQueue<>(BY_SCORE.reversed());
+        PriorityQueue<Scored> results = new PriorityQueue<>(BY_SCORE);
+        for (Scored ep : entryPoints) {
+            visited.set(ep.node());
+            candidates.offer(ep);
+            results.offer(ep);
+        }
+        while (results.size() > ef) {
+            results.poll();
+        }
+        while (!candidates.isEmpty()) {
+            Scored current = candidates.poll();
+            if (results.size() >= ef && current.score() < results.peek().score()) {
+                break;
+            }
+            int[] neighbours = links[current.node()][level];
+            int count = linkCounts[current.node()][level];
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float score = VectorMath.dot(query, vectors[neighbour]);
+                if (results.size() < ef || score > results.peek().score()) {
+                    Scored scored = new Scored(neighbour, score);
+                    candidates.offer(scored);
+                    results.offer(scored);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        List<Scored> sorted = new ArrayList<>(results);
+        sorted.sort(BY_SCORE.reversed());
+        return sorted;
+    }
+
+    /**
+     * 启发式选邻： 优先保留彼此不相近的候选以保持图的连通性， 不足 max 个时用剩余候选补齐
+     */
+    private List<Scored> selectNeighbours(List<Scored> candidates, int max) {
+        if (candidates.size() <= max) {
+            return candidates;
+        }
+        List<Scored> selected = new ArrayList<>(max);
+        List<Scored> pruned = new ArrayList<>();
+        for (Scored candidate : candidates) {
+            boolean diverse = true;
+            for (Scored chosen : selected) {
+                if (VectorMath.dot(vectors[candidate.node()], vectors[chosen.node()]) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+                if (selected.size() == max) {
+                    return selected;
+                }
+            } else {
+                pruned.add(candidate);
+            }
+        }
+        for (Scored candidate : pruned) {
+            if (selected.size() == max) {
+                break;
+            }
+            selected.add(candidate);
+        }
+        return selected;
+    }
+
+    private void connect(int from, int to, int level) {
+        int max = maxConnections(level);
+        int count = linkCounts[from][level];
+        if (count < max) {
+            links[from][level][count] = to;
+            linkCounts[from][level]++;
+            return;
+        }
+        float[] base = vectors[from];
+        List<Scored> candidates = new ArrayList<>(count + 1);
+        for (int i = 0; i < count; i++) {
+            int neighbour = links[from][level][i];
+            candidates.add(new Scored(neighbour, VectorMath.dot(base, vectors[neighbour])));
+        }
+        candidates.add(new Scored(to, VectorMath.dot(base, vectors[to])));
+        candidates.sort(BY_SCORE.reversed());
+        List<Scored> selected = selectNeighbours(candidates, max);
+        for (int i = 0; i < selected.size(); i++) {
+            links[from][level][i] = selected.get(i).node();
+        }
+        linkCounts[from][level] = selected.size();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= vectors.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, vectors.length * 2);
+        vectors = Arrays.copyOf(vectors, newCapacity);
+        levels = Arrays.copyOf(levels, newCapacity);
+        links = Arrays.copyOf(links, newCapacity);
+        linkCounts = Arrays.copyOf(linkCounts, newCapacity);
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(m);
+            out.writeInt(efConstruction);
+            out.writeInt(dimensions);
+            out.writeInt(size);
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+            for (int node = 0; node < size; node++) {
+                out.writeBoolean(deleted.get(node));
+                for (float v : vectors[node]) {
+                    out.writeFloat(v);
+                }
+                out.writeInt(levels[node]);
+                for (int lc = 0; lc <= levels[node]; lc++) {
+                    out.writeInt(linkCounts[node][lc]);
+                    for (int i = 0; i < linkCounts[node][lc]; i++) {
+                        out.writeInt(links[node][lc][i]);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static HnswIndex read(DataInputStream in, int efSearch) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("不是有效的 HNSW 索引文件");
+        }
+        HnswIndex index = new HnswIndex(in.readInt(), in.readInt(), efSearch);
+        index.dimensions = in.readInt();
+        int size = in.readInt();
+        index.entryPoint = in.readInt();
+        index.maxLevel = in.readInt();
+        index.ensureCapacity(size);
+        for (int node = 0; node < size; node++) {
+            if (in.readBoolean()) {
+                index.deleted.set(node);
+                index.deletedCount++;
+            }
+            float[] vector = new float[index.dimensions];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = in.readFloat();
+            }
+            index.vectors[node] = vector;
+            int level = in.readInt();
+            index.levels[node] = level;
+            index.links[node] = new int[level + 1][];
+            index.linkCounts[node] = new int[level + 1];
+            for (int lc = 0; lc <= level; lc++) {
+                int count = in.readInt();
+                index.links[node][lc] = new int[index.maxConnections(lc)];
+                index.linkCounts[node][lc] = count;
+                for (int i = 0; i < count; i++) {
+                    index.links[node][lc][i] = in.readInt();
+                }
+            }
+        }
+        index.size = size;
+        return index;
+    }
+}
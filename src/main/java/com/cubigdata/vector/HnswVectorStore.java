@@ -0,0 +1,402 @@
+package com.cubigdata.vector;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.observation.conventions.VectorStoreProvider;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.util.JacksonUtils;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * 基于 HNSW 的内存向量存储， 可直接替换 SimpleVectorStore
+ * <p>
+ * 无过滤条件的检索走 HNSW 近似检索； 带元数据过滤条件时对满足条件的文档精确检索。
+ * {@link #load(File)} / {@link #save(File)} 兼容 SimpleVectorStore 的 JSON 格式，
+ * {@link #loadIndex(Path)} / {@link #saveIndex(Path)} 连同图结构一起持久化， 启动时无需重建索引。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 22:30
+ */
+@Slf4j
+public class HnswVectorStore extends AbstractObservationVectorStore implements FileBackedVectorStore {
+
+    private static final int MAGIC = 0x48565331;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModules(JacksonUtils.instantiateAvailableModules())
+            .build();
+
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private HnswIndex index;
+    private final List<String> ids = new ArrayList<>();
+    private final List<String> texts = new ArrayList<>();
+    private final List<Map<String, Object>> metadata = new ArrayList<>();
+    private final Map<String, Integer> nodeById = new HashMap<>();
+
+    protected HnswVectorStore(Builder builder) {
+        super(builder);
+        this.m = builder.m;
+        this.efConstruction = builder.efConstruction;
+        this.efSearch = builder.efSearch;
+        this.index = new HnswIndex(m, efConstruction, efSearch);
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel) {
+        return new Builder(embeddingModel);
+    }
+
+    @Override
+    public void doAdd(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptionsBuilder.builder().build(), batchingStrategy);
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                insert(document.getId(), document.getText(), document.getMetadata(), embeddings.get(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void doDelete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            for (String id : idList) {
+                Integer node = nodeById.remove(id);
+                if (node != null) {
+                    index.markDeleted(node);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> doSimilaritySearch(SearchRequest request) {
+        float[] query = VectorMath.normalize(embeddingModel.embed(request.getQuery()));
+        Predicate<Map<String, Object>> filter = MetadataFilter.of(request);
+        lock.readLock().lock();
+        try {
+            List<HnswIndex.Scored> hits = filter == null
+                    ? index.search(query, request.getTopK())
+                    : filteredSearch(query, request.getTopK(), filter);
+            List<Document> documents = new ArrayList<>(hits.size());
+            for (HnswIndex.Scored hit : hits) {
+                if (hit.score() >= request.getSimilarityThreshold()) {
+                    documents.add(toDocument(hit.node(), hit.score()));
+                }
+            }
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+        return VectorStoreObservationContext.builder(VectorStoreProvider.SIMPLE.value(), operationName)
+                .dimensions(index.dimensions() > 0 ? index.dimensions() : null)
+                .collectionName("in-memory-hnsw")
+                .similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+    }
+
+    /**
+     * 按 SimpleVectorStore 的 JSON 格式加载已向量化的文档， 重建 HNSW 图， 不调用 embedding
+     */
+    @Override
+    public void load(File file) {
+        try {
+            Map<String, StoredContent> contents = objectMapper.readValue(file, new TypeReference<LinkedHashMap<String, StoredContent>>() {
+            });
+            lock.writeLock().lock();
+            try {
+                clear();
+                for (StoredContent content : contents.values()) {
+                    insert(content.id(), content.text(), content.metadata(), content.embedding());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("HNSW 向量存储已从 JSON 加载 {} 个文档", contents.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 按 SimpleVectorStore 的 JSON 格式保存， 向量为归一化后的值
+     */
+    @Override
+    public void save(File file) {
+        lock.readLock().lock();
+        try {
+            Map<String, StoredContent> contents = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> entry : nodeById.entrySet()) {
+                int node = entry.getValue();
+                contents.put(entry.getKey(), new StoredContent(ids.get(node), texts.get(node), metadata.get(node), index.vector(node)));
+            }
+            FileBackedVectorStore.replaceAtomically(file, tmp -> objectMapper.writerWithDefaultPrettyPrinter().writeValue(tmp, contents));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 从二进制快照读取向量并重建 HNSW 图
+     */
+    @Override
+    public void loadSnapshot(VectorSnapshot snapshot) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (int row = 0; row < snapshot.count(); row++) {
+                insert(snapshot.id(row), snapshot.text(row), snapshot.metadata(row), snapshot.vector(row));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("HNSW 向量存储已从快照加载 {} 个文档", snapshot.count());
+    }
+
+    @Override
+    public void saveSnapshot(Path path) throws IOException {
+        List<VectorSnapshot.Entry> entries = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int node : nodeById.values()) {
+                entries.add(new VectorSnapshot.Entry(ids.get(node), texts.get(node), metadata.get(node), index.vector(node)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        VectorSnapshot.write(path, entries);
+    }
+
+    /**
+     * 连同图结构一起持久化， 写临时文件后原子替换
+     */
+    public void saveIndex(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path tmp = Files.createTempFile(path.getParent() != null ? path.getParent() : Path.of("."), "hnsw_", ".tmp");
+        lock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(ids.size());
+            for (int node = 0; node < ids.size(); node++) {
+                writeString(out, ids.get(node));
+                writeString(out, texts.get(node));
+                writeString(out, objectMapper.writeValueAsString(metadata.get(node)));
+            }
+            index.write(out);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("HNSW 索引已保存: {}, 文档数 {}", path, index.liveSize());
+    }
+
+    public void loadIndex(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("不是有效的 HNSW 向量存储文件: " + path);
+            }
+            int count = in.readInt();
+            List<String> loadedIds = new ArrayList<>(count);
+            List<String> loadedTexts = new ArrayList<>(count);
+            List<Map<String, Object>> loadedMetadata = new ArrayList<>(count);
+            for (int node = 0; node < count; node++) {
+                loadedIds.add(readString(in));
+                loadedTexts.add(readString(in));
+                loadedMetadata.add(objectMapper.readValue(readString(in), new TypeReference<Map<String, Object>>() {
+                }));
+            }
+            HnswIndex loadedIndex = HnswIndex.read(in, efSearch);
+
+            lock.writeLock().lock();
+            try {
+                clear();
+                index = loadedIndex;
+                ids.addAll(loadedIds);
+                texts.addAll(loadedTexts);
+                metadata.addAll(loadedMetadata);
+                for (int node = 0; node < count; node++) {
+                    if (!loadedIndex.isDeleted(node)) {
+                        nodeById.put(loadedIds.get(node), node);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("HNSW 索引已加载: {}, 文档数 {}", path, nodeById.size());
+        }
+    }
+
+    /**
+     * 当前索引， 供召回率基准测试使用
+     */
+    public HnswIndex index() {
+        return index;
+    }
+
+    @Override
+    public Map<String, String> contents() {
+        lock.readLock().lock();
+        try {
+            Map<String, String> contents = new LinkedHashMap<>(nodeById.size() * 2);
+            nodeById.forEach((id, node) -> contents.put(id, texts.get(node)));
+            return contents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(String id, String text, Map<String, Object> meta, float[] embedding) {
+        Integer previous = nodeById.get(id);
+        if (previous != null) {
+            index.markDeleted(previous);
+        }
+        int node = index.add(VectorMath.normalize(embedding));
+        ids.add(id);
+        texts.add(text);
+        metadata.add(meta == null ? Map.of() : meta);
+        nodeById.put(id, node);
+    }
+
+    private void clear() {
+        index = new HnswIndex(m, efConstruction, efSearch);
+        ids.clear();
+        texts.clear();
+        metadata.clear();
+        nodeById.clear();
+    }
+
+    private List<HnswIndex.Scored> filteredSearch(float[] query, int topK, Predicate<Map<String, Object>> filter) {
+        PriorityQueue<HnswIndex.Scored> best = new PriorityQueue<>((a, b) -> Float.compare(a.score(), b.score()));
+        for (int node : nodeById.values()) {
+            if (!filter.test(metadata.get(node))) {
+                continue;
+            }
+            best.offer(new HnswIndex.Scored(node, VectorMath.dot(query, index.vector(node))));
+            if (best.size() > topK) {
+                best.poll();
+            }
+        }
+        List<HnswIndex.Scored> hits = new ArrayList<>(best);
+        hits.sort((a, b) -> Float.compare(b.score(), a.score()));
+        return hits;
+    }
+
+    private Document toDocument(int node, float score) {
+        Map<String, Object> meta = new HashMap<>(metadata.get(node));
+        meta.put("distance", 1.0f - score);
+        return Document.builder()
+                .id(ids.get(node))
+                .text(texts.get(node))
+                .metadata(meta)
+                .score((double) score)
+                .build();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * SimpleVectorStore JSON 中的单个文档
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record StoredContent(String id, String text, Map<String, Object> metadata, float[] embedding) {
+    }
+
+    public static class Builder extends AbstractVectorStoreBuilder<Builder> {
+
+        private int m = 16;
+        private int efConstruction = 200;
+        private int efSearch = 64;
+
+        private Builder(EmbeddingModel embeddingModel) {
+            super(embeddingModel);
+        }
+
+        public Builder m(int m) {
+            this.m = m;
+            return this;
+        }
+
+        public Builder efConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+            return this;
+        }
+
+        public Builder efSearch(int efSearch) {
+            this.efSearch = efSearch;
+            return this;
+        }
+
+        @Override
+        public HnswVectorStore build() {
+            return new HnswVectorStore(this);
+        }
+    }
+}
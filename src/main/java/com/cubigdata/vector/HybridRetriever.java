@@ -0,0 +1,144 @@
+package com.cubigdata.vector;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 词法 + 向量混合检索
+ * <p>
+ * 同一查询分别在向量存储与 {@link Bm25Index} 上各取 candidates 个候选， 按倒数排名融合（RRF）：
+ * score = Σ 1 / (rrfK + rank)。 知识库字段名与查询的精确词（字段名、注释）完全一致的文档额外加 1 分，
+ * 总是排在融合结果之前。
+ * <p>
+ * BM25 索引由存储的文档内容构建， 由 {@link #prepare} 在新存储上线前于加载线程上预先构建， 切换后首次检索直接启用；
+ * 未预先构建时才在检索时加锁构建（兜底）。 存储不支持读取内容（simple 模式）时只做向量检索。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 03:30
+ */
+@Slf4j
+public class HybridRetriever {
+
+    private static final double EXACT_BOOST = 1.0;
+
+    private final VectorStore vectorStore;
+    private final int candidates;
+    private final double rrfK;
+
+    private volatile Indexed indexed;
+
+    /**
+     * 为即将上线的存储预先构建的索引， 切换前旧存储的检索仍使用 {@link #indexed}
+     */
+    private volatile Indexed staged;
+
+    private record Indexed(VectorStore store, Bm25Index index) {
+    }
+
+    public HybridRetriever(VectorStore vectorStore, int candidates, double rrfK) {
+        this.vectorStore = vectorStore;
+        this.candidates = Math.max(1, candidates);
+        this.rrfK = rrfK;
+    }
+
+    /**
+     * @param exactTerms 需精确命中字段名的词， 可为空
+     * @return 融合得分降序的文档， 得分写入 {@link Document#getScore()}
+     */
+    public List<Document> search(String query, List<String> exactTerms, int topK, double similarityThreshold) {
+        Map<String, Double> scores = new HashMap<>();
+        Map<String, Document> documents = new LinkedHashMap<>();
+
+        List<Document> dense = vectorStore.similaritySearch(SearchRequest.builder()
+                .query(query)
+                .topK(candidates)
+                .similarityThreshold(similarityThreshold)
+                .build());
+        for (int rank = 0; rank < dense.size(); rank++) {
+            Document document = dense.get(rank);
+            documents.putIfAbsent(document.getId(), document);
+            scores.merge(document.getId(), 1 / (rrfK + rank + 1), Double::sum);
+        }
+
+        Bm25Index index = index();
+        if (index != null) {
+            List<Bm25Index.Scored> lexical = index.search(query, candidates);
+            for (int rank = 0; rank < lexical.size(); rank++) {
+                int doc = lexical.get(rank).doc();
+                documents.computeIfAbsent(index.id(doc), id -> Document.builder().id(id).text(index.text(doc)).build());
+                scores.merge(index.id(doc), 1 / (rrfK + rank + 1), Double::sum);
+            }
+            Set<Integer> exact = new HashSet<>();
+            for (String term : exactTerms) {
+                for (int doc : index.exact(term)) {
+                    exact.add(doc);
+                }
+            }
+            for (int doc : exact) {
+                documents.computeIfAbsent(index.id(doc), id -> Document.builder().id(id).text(index.text(doc)).build());
+                scores.merge(index.id(doc), EXACT_BOOST, Double::sum);
+            }
+        }
+
+        List<Document> result = new ArrayList<>(Math.min(topK, documents.size()));
+        scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(topK)
+                .forEach(entry -> result.add(documents.get(entry.getKey()).mutate().score(entry.getValue()).build()));
+        return result;
+    }
+
+    /**
+     * 为即将上线的存储构建 BM25 索引， 在存储切换前由加载线程调用
+     */
+    public void prepare(VectorStore store) {
+        staged = new Indexed(store, build(store));
+    }
+
+    /**
+     * 当前存储的 BM25 索引； 优先使用预先构建的索引， 否则加锁构建
+     */
+    Bm25Index index() {
+        VectorStore store = vectorStore instanceof ReloadableVectorStore reloadable ? reloadable.current() : vectorStore;
+        Indexed current = indexed;
+        if (current != null && current.store() == store) {
+            return current.index();
+        }
+        Indexed prepared = staged;
+        if (prepared != null && prepared.store() == store) {
+            indexed = prepared;
+            return prepared.index();
+        }
+        synchronized (this) {
+            current = indexed;
+            if (current != null && current.store() == store) {
+                return current.index();
+            }
+            log.warn("知识库 BM25 索引未预先构建， 在检索线程上构建");
+            indexed = new Indexed(store, build(store));
+            return indexed.index();
+        }
+    }
+
+    private static Bm25Index build(VectorStore store) {
+        if (!(store instanceof FileBackedVectorStore fileBackedStore)) {
+            log.warn("向量存储 {} 不支持读取文档内容， 混合检索只使用向量检索", store.getClass().getSimpleName());
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        Bm25Index index = Bm25Index.build(fileBackedStore.contents());
+        log.info("知识库 BM25 索引已构建: {} 个文档, 耗时 {} ms", index.size(), System.currentTimeMillis() - start);
+        return index;
+    }
+}
@@ -0,0 +1,146 @@
+package com.cubigdata.vector;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.TextReader;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.core.io.Resource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 知识库增量导入
+ * <p>
+ * 原文按 TokenTextSplitter 切块， 以块文本的 SHA-256 作为文档 id 与比对依据：
+ * 与存储中已有文档文本一致的块跳过， 新增或变化的块分批并发写入（写入时向量化）， 原文中已不存在的块从存储中删除。
+ * 已有文档按文本内容比对而非 id， 旧版本随机 id 的向量文件也无需重新向量化。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 02:10
+ */
+@Slf4j
+public class KnowledgeBaseIngestor {
+
+    public static final String CHUNK_HASH_KEY = "chunk_hash";
+
+    private final int batchSize;
+    private final int parallelism;
+    private final double requestsPerSecond;
+    private final int maxRetries;
+
+    /**
+     * @param requestsPerSecond 每秒写入的批次数上限， 小于等于 0 表示不限速
+     */
+    public KnowledgeBaseIngestor(int batchSize, int parallelism, double requestsPerSecond, int maxRetries) {
+        this.batchSize = Math.max(1, batchSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.requestsPerSecond = requestsPerSecond;
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    public record Result(int chunks, int unchanged, int added, int deleted, long millis) {
+
+        public boolean changed() {
+            return added > 0 || deleted > 0;
+        }
+    }
+
+    /**
+     * 切块并以内容哈希作为 id， 重复的块只保留一个
+     */
+    public List<Document> split(Resource source) {
+        Map<String, Document> chunks = new LinkedHashMap<>();
+        for (Document chunk : new TokenTextSplitter().transform(new TextReader(source).read())) {
+            String hash = hash(chunk.getText());
+            if (chunks.containsKey(hash)) {
+                continue;
+            }
+            Map<String, Object> metadata = new HashMap<>(chunk.getMetadata());
+            metadata.put(CHUNK_HASH_KEY, hash);
+            chunks.put(hash, Document.builder().id(hash).text(chunk.getText()).metadata(metadata).build());
+        }
+        return new ArrayList<>(chunks.values());
+    }
+
+    /**
+     * 将存储同步为 source 的最新内容
+     */
+    public Result sync(VectorStore store, Resource source) {
+        if (!(store instanceof FileBackedVectorStore fileBackedStore)) {
+            throw new IllegalArgumentException("增量导入需要 FileBackedVectorStore: " + store.getClass().getSimpleName());
+        }
+        long start = System.currentTimeMillis();
+        List<Document> chunks = split(source);
+
+        Map<String, String> existingByHash = new HashMap<>();
+        List<String> toDelete = new ArrayList<>();
+        fileBackedStore.contents().forEach((id, text) -> {
+            if (existingByHash.putIfAbsent(hash(text), id) != null) {
+                toDelete.add(id);
+            }
+        });
+
+        List<Document> toAdd = new ArrayList<>();
+        for (Document chunk : chunks) {
+            if (existingByHash.remove(chunk.getId()) == null) {
+                toAdd.add(chunk);
+            }
+        }
+        // 剩余的已有文档在新原文中不存在
+        toDelete.addAll(existingByHash.values());
+
+        write(store, toAdd);
+        if (!toDelete.isEmpty()) {
+            store.delete(toDelete);
+        }
+        Result result = new Result(chunks.size(), chunks.size() - toAdd.size(), toAdd.size(), toDelete.size(),
+                System.currentTimeMillis() - start);
+        log.info("知识库增量导入完成: 共 {} 块, 未变化 {}, 新增 {}, 删除 {}, 耗时 {} ms",
+                result.chunks(), result.unchanged(), result.added(), result.deleted(), result.millis());
+        return result;
+    }
+
+    private void write(VectorStore store, List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<List<Document>> batches = new ArrayList<>();
+        for (int i = 0; i < documents.size(); i += batchSize) {
+            batches.add(documents.subList(i, Math.min(documents.size(), i + batchSize)));
+        }
+        Flux<List<Document>> source = Flux.fromIterable(batches);
+        if (requestsPerSecond > 0) {
+            source = source.delayElements(Duration.ofNanos((long) (1_000_000_000L / requestsPerSecond)));
+        }
+        source.flatMap(batch -> Mono.fromRunnable(() -> store.add(batch))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .retryWhen(Retry.backoff(maxRetries, Duration.ofSeconds(1))
+                                .doBeforeRetry(signal -> log.warn("知识库批次写入失败， 第 {} 次重试: {}",
+                                        signal.totalRetries() + 1, signal.failure().getMessage()))), parallelism)
+                .blockLast();
+    }
+
+    static String hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((text == null ? "" : text.strip()).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
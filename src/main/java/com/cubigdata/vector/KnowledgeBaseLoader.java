@@ -0,0 +1,262 @@
+package com.cubigdata.vector;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.reader.TextReader;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 分类分级知识库加载
+ * <p>
+ * 每次 {@link #build()} 都新建一个存储并完整加载： 依次尝试 HNSW 索引、二进制快照、JSON 向量文件，
+ * 再按原文增量同步（或在没有任何向量文件时全量向量化）， 有变化时回写 JSON、快照与索引。
+ * 加载过程不触碰正在服务的存储， 由调用方在加载完成后整体替换。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 02:40
+ */
+@Slf4j
+public class KnowledgeBaseLoader {
+
+    private final Supplier<VectorStore> storeFactory;
+    private final Resource ragSource;
+    private final String vectorFilePath;
+    private final String snapshotPath;
+    private final String hnswIndexPath;
+    /**
+     * 为 null 时不做增量同步
+     */
+    private final KnowledgeBaseIngestor ingestor;
+
+    public KnowledgeBaseLoader(Supplier<VectorStore> storeFactory, Resource ragSource, String vectorFilePath,
+                               String snapshotPath, String hnswIndexPath, KnowledgeBaseIngestor ingestor) {
+        this.storeFactory = storeFactory;
+        this.ragSource = ragSource;
+        this.vectorFilePath = vectorFilePath;
+        this.snapshotPath = snapshotPath == null ? "" : snapshotPath;
+        this.hnswIndexPath = hnswIndexPath == null ? "" : hnswIndexPath;
+        this.ingestor = ingestor;
+    }
+
+    /**
+     * 未加载数据的空存储
+     */
+    public VectorStore newStore() {
+        return storeFactory.get();
+    }
+
+    public VectorStore build() throws IOException {
+        VectorStore store = newStore();
+        load(store);
+        return store;
+    }
+
+    /**
+     * 可监听变更的本地文件： 文件系统上的知识库原文与 file: 向量文件
+     */
+    public List<Path> watchedFiles() {
+        List<Path> files = new ArrayList<>();
+        if (ragSource.isFile()) {
+            try {
+                files.add(ragSource.getFile().toPath());
+            } catch (IOException e) {
+                log.warn("无法解析知识库原文路径: {}", ragSource);
+            }
+        }
+        if (vectorFilePath.startsWith("file:")) {
+            files.add(Path.of(vectorFilePath.replace("file:", "")));
+        }
+        return files;
+    }
+
+    private void load(VectorStore store) throws IOException {
+        boolean loaded;
+        boolean snapshotLoaded = false;
+        boolean hnswIndexLoaded = false;
+        Path snapshotFile = resolveSnapshot();
+        if (store instanceof HnswVectorStore hnswStore && !hnswIndexPath.isBlank()
+                && Files.exists(Path.of(hnswIndexPath))) {
+            // HNSW 索引文件存在时直接加载图结构， 无需重建
+            hnswStore.loadIndex(Path.of(hnswIndexPath));
+            loaded = true;
+            hnswIndexLoaded = true;
+            snapshotLoaded = snapshotFile != null;
+        } else if (store instanceof FileBackedVectorStore fileBackedStore && snapshotFile != null) {
+            // 二进制快照存在时直接内存映射加载， 不解析 JSON
+            long start = System.currentTimeMillis();
+            fileBackedStore.loadSnapshot(VectorSnapshot.open(snapshotFile));
+            log.info("✅ 已从二进制快照加载向量数据: {}, 耗时 {} ms", snapshotPath, System.currentTimeMillis() - start);
+            loaded = true;
+            snapshotLoaded = true;
+        } else {
+            loaded = loadVectorFile(store);
+        }
+
+        boolean changed;
+        if (ingestor != null && store instanceof FileBackedVectorStore) {
+            // 按块内容哈希比对原文， 只向量化新增或变化的块
+            log.info("🔄 正在增量同步分类分级知识库: {}", ragSource);
+            changed = ingestor.sync(store, ragSource).changed();
+        } else if (!loaded) {
+            log.warn("⚠️ 向量文件不存在: {}", vectorFilePath);
+            log.info("🔄 正在向量化加载分类分级知识库: {}", ragSource);
+            var chunks = new TokenTextSplitter().transform(new TextReader(ragSource).read());
+            store.write(chunks);
+            log.info("✅ 向量化完成，共处理 {} 个文档块", chunks.size());
+            changed = true;
+        } else {
+            changed = false;
+        }
+
+        if (changed) {
+            saveVectorFile(store);
+        }
+        // 生成二进制快照， 下次启动直接映射加载； 先写临时文件再原子替换
+        if ((changed || !snapshotLoaded) && store instanceof FileBackedVectorStore fileBackedStore
+                && !snapshotPath.isBlank() && !snapshotPath.startsWith("classpath:")) {
+            Path target = Path.of(snapshotPath.replace("file:", ""));
+            fileBackedStore.saveSnapshot(target);
+            log.info("💾 向量快照已保存到: {}", snapshotPath);
+            if (store instanceof MappedVectorStore mappedStore) {
+                // 重新映射， 释放增量区占用的堆内存
+                mappedStore.loadSnapshot(VectorSnapshot.open(target));
+            }
+        }
+        if ((changed || !hnswIndexLoaded) && store instanceof HnswVectorStore hnswStore && !hnswIndexPath.isBlank()) {
+            hnswStore.saveIndex(Path.of(hnswIndexPath));
+        }
+    }
+
+    /**
+     * 解析快照路径， 文件不存在、或 file: 向量文件比快照新（需以向量文件为准）时返回 null；
+     * classpath 资源复制到临时文件后映射
+     */
+    private Path resolveSnapshot() throws IOException {
+        if (snapshotPath.isBlank()) {
+            return null;
+        }
+        if (snapshotPath.startsWith("classpath:")) {
+            ClassPathResource resource = new ClassPathResource(snapshotPath.replace("classpath:", ""));
+            if (!resource.exists()) {
+                return null;
+            }
+            Path tempFile = Files.createTempFile("classification_vectors_", ".vsnap");
+            try (InputStream inputStream = resource.getInputStream()) {
+                Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempFile.toFile().deleteOnExit();
+            return tempFile;
+        }
+        Path path = Path.of(snapshotPath.replace("file:", ""));
+        if (!Files.exists(path)) {
+            return null;
+        }
+        if (vectorFilePath.startsWith("file:")) {
+            Path vectorFile = Path.of(vectorFilePath.replace("file:", ""));
+            if (Files.exists(vectorFile) && Files.getLastModifiedTime(vectorFile).compareTo(Files.getLastModifiedTime(path)) > 0) {
+                log.info("向量文件比快照新， 以向量文件为准: {}", vectorFile);
+                return null;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * 从预计算的 JSON 向量文件加载， 支持 classpath: 和 file: 两种协议； 文件不存在时返回 false
+     */
+    private boolean loadVectorFile(VectorStore store) throws IOException {
+        Resource vectorFile;
+        File fileToLoad = null;
+
+        if (vectorFilePath.startsWith("file:")) {
+            // 外部文件系统路径（Docker部署场景）
+            String actualPath = vectorFilePath.replace("file:", "");
+            vectorFile = new FileSystemResource(actualPath);
+            log.info("📂 使用外部文件系统路径: {}", actualPath);
+
+            if (vectorFile.exists()) {
+                fileToLoad = vectorFile.getFile();
+            }
+        } else {
+            // classpath路径（开发环境或JAR内部）
+            String actualPath = vectorFilePath.replace("classpath:", "");
+            vectorFile = new ClassPathResource(actualPath);
+            log.info("📦 使用classpath路径: {}", actualPath);
+
+            if (vectorFile.exists()) {
+                // 从JAR中读取资源，复制到临时文件
+                try (InputStream inputStream = vectorFile.getInputStream()) {
+                    Path tempFile = Files.createTempFile("classification_vectors_", ".json");
+                    Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                    fileToLoad = tempFile.toFile();
+                    log.info("📋 已将classpath资源复制到临时文件: {}", tempFile);
+                }
+            }
+        }
+
+        if (fileToLoad == null || !fileToLoad.exists()) {
+            return false;
+        }
+        log.info("🔄 从预计算文件加载向量数据: {}", vectorFilePath);
+        // 从文件加载向量数据
+        if (store instanceof SimpleVectorStore simpleStore) {
+            simpleStore.load(fileToLoad);
+        } else if (store instanceof FileBackedVectorStore fileBackedStore) {
+            fileBackedStore.load(fileToLoad);
+        } else {
+            return false;
+        }
+        log.info("✅ 向量数据加载完成，文件大小: {} KB", fileToLoad.length() / 1024);
+        return true;
+    }
+
+    /**
+     * 保存向量数据到 JSON 文件（用于后续部署）
+     */
+    private void saveVectorFile(VectorStore store) {
+        if (!(store instanceof SimpleVectorStore || store instanceof FileBackedVectorStore)) {
+            return;
+        }
+        File saveFile;
+        if (vectorFilePath.startsWith("file:")) {
+            // 外部文件系统路径
+            saveFile = new File(vectorFilePath.replace("file:", ""));
+        } else {
+            // classpath路径，保存到项目resources目录
+            saveFile = new File("src/main/resources/" + vectorFilePath.replace("classpath:", ""));
+        }
+
+        // 确保目录存在
+        if (saveFile.getParentFile() != null) {
+            saveFile.getParentFile().mkdirs();
+        }
+
+        if (store instanceof SimpleVectorStore simpleStore) {
+            // SimpleVectorStore 直接覆盖写目标文件， 中途崩溃会留下比快照更新的截断 JSON， 导致下次启动失败
+            try {
+                FileBackedVectorStore.replaceAtomically(saveFile, simpleStore::save);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            ((FileBackedVectorStore) store).save(saveFile);
+        }
+        log.info("💾 向量数据已保存到: {}, 文件大小: {} KB",
+                saveFile.getAbsolutePath(), saveFile.length() / 1024);
+    }
+}
@@ -0,0 +1,247 @@
+package com.cubigdata.vector;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 知识库热加载
+ * <p>
+ * 在后台线程上用 {@link KnowledgeBaseLoader} 构建新存储， 完成后原子替换 {@link ReloadableVectorStore} 的当前存储；
+ * 旧存储在宽限期后关闭， 期间已开始的检索仍可在旧存储上完成。
+ * 开启监听时定期比对原文与向量文件的修改时间和大小， 变化后自动重新加载。 加载任务串行执行， 失败时保留旧存储，
+ * 并记录失败时的文件状态： 文件未再变化时按监听间隔指数退避重试， 避免每个周期都重新向量化一个坏文件。
+ * 切换前对新存储执行 {@link #beforeSwap} 注册的准备工作（如构建词法索引）， 使新存储上线时无需在请求线程上初始化；
+ * 切换成功后依次执行 {@link #onReload} 注册的回调， 用于清空依赖旧知识库的结果缓存、重建规则等（启动加载不触发）。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 02:40
+ */
+@Slf4j
+public class KnowledgeBaseReloader implements AutoCloseable {
+
+    /**
+     * 连续失败时重试间隔最多放大到监听间隔的 2^6 = 64 倍
+     */
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
+    private final KnowledgeBaseLoader loader;
+    private final ReloadableVectorStore store;
+    private final Duration gracePeriod;
+    private final List<Path> watchedFiles;
+    private final Duration watchInterval;
+    private final List<Runnable> listeners = new ArrayList<>();
+    private final List<Consumer<VectorStore>> preparers = new ArrayList<>();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "kb-reloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile String fingerprint;
+
+    /**
+     * 最近一次失败时的文件状态及下次允许自动重试的时间， 只在加载线程上读写
+     */
+    private String failedFingerprint;
+    private long retryAt;
+    private volatile int consecutiveFailures;
+
+    private volatile CompletableFuture<Map<String, Object>> pending;
+    private volatile Map<String, Object> lastResult = Map.of();
+    private long reloads;
+    private long failures;
+
+    /**
+     * @param watchInterval 监听间隔， 小于等于 0 时只支持手动触发
+     */
+    public KnowledgeBaseReloader(KnowledgeBaseLoader loader, ReloadableVectorStore store, Duration watchInterval,
+                                 Duration gracePeriod) {
+        this.loader = loader;
+        this.store = store;
+        this.gracePeriod = gracePeriod;
+        this.watchedFiles = loader.watchedFiles();
+        this.watchInterval = watchInterval;
+        this.fingerprint = fingerprint();
+        boolean watch = !watchInterval.isZero() && !watchInterval.isNegative();
+        if (watch && !watchedFiles.isEmpty()) {
+            executor.scheduleWithFixedDelay(this::checkForChanges, watchInterval.toMillis(), watchInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+            log.info("知识库热加载监听已启用: {}, 间隔 {}", watchedFiles, watchInterval);
+        } else if (watch) {
+            log.info("知识库原文与向量文件均不在文件系统上， 热加载只支持手动触发");
+        }
+    }
+
+    /**
+     * 触发一次重新加载； 已有任务排队时复用该任务
+     */
+    public synchronized CompletableFuture<Map<String, Object>> reload(String reason) {
+        CompletableFuture<Map<String, Object>> current = pending;
+        if (current != null && !current.isDone()) {
+            return current;
+        }
+        CompletableFuture<Map<String, Object>> future = CompletableFuture.supplyAsync(() -> doReload(reason), executor);
+        pending = future;
+        return future;
+    }
+
+    /**
+     * 注册切换成功后的回调， 在加载线程上按注册顺序执行， 单个回调失败不影响其他回调
+     */
+    public synchronized void onReload(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 注册切换前对新存储的准备工作， 包括启动加载； 在加载线程上执行， 失败只记录日志， 由使用方在首次访问时兜底
+     */
+    public synchronized void beforeSwap(Consumer<VectorStore> preparer) {
+        preparers.add(preparer);
+    }
+
+    /**
+     * 首次加载， 同样在加载线程上执行， 启动线程等待完成； 期间的文件变化与手动触发复用该任务
+     */
+    public Map<String, Object> loadInitial() {
+        return reload("startup").join();
+    }
+
+    private void checkForChanges() {
+        String current = fingerprint();
+        if (current.equals(fingerprint)) {
+            return;
+        }
+        if (current.equals(failedFingerprint) && System.currentTimeMillis() < retryAt) {
+            return;
+        }
+        log.info("检测到知识库文件变化， 开始重新加载");
+        reload("file-change");
+    }
+
+    private Map<String, Object> doReload(String reason) {
+        long start = System.currentTimeMillis();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("reason", reason);
+        result.put("startedAt", Instant.ofEpochMilli(start).toString());
+        String attempted = fingerprint();
+        try {
+            VectorStore next = loader.build();
+            prepare(next);
+            VectorStore previous = store.swap(next);
+            // 记录加载后（含本次回写）的文件状态， 避免回写触发再次加载
+            fingerprint = fingerprint();
+            failedFingerprint = null;
+            consecutiveFailures = 0;
+            retire(previous);
+            List<Runnable> callbacks;
+            synchronized (this) {
+                reloads++;
+                callbacks = List.copyOf(listeners);
+            }
+            if (!"startup".equals(reason)) {
+                notifyListeners(callbacks);
+            }
+            result.put("success", true);
+            result.put("store", next.getClass().getSimpleName());
+            log.info("✅ 知识库已重新加载并切换, 原因 {}, 耗时 {} ms", reason, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            synchronized (this) {
+                failures++;
+            }
+            consecutiveFailures = attempted.equals(failedFingerprint) ? consecutiveFailures + 1 : 1;
+            failedFingerprint = attempted;
+            long backoff = watchInterval.toMillis() << Math.min(consecutiveFailures - 1, MAX_BACKOFF_SHIFT);
+            retryAt = System.currentTimeMillis() + backoff;
+            result.put("success", false);
+            result.put("error", e.getMessage());
+            log.error("❌ 知识库重新加载失败， 继续使用旧存储， 文件不变时 {} ms 后重试: {}", backoff, e.getMessage(), e);
+        }
+        result.put("millis", System.currentTimeMillis() - start);
+        lastResult = result;
+        return result;
+    }
+
+    private void prepare(VectorStore next) {
+        List<Consumer<VectorStore>> callbacks;
+        synchronized (this) {
+            callbacks = List.copyOf(preparers);
+        }
+        for (Consumer<VectorStore> callback : callbacks) {
+            try {
+                callback.accept(next);
+            } catch (Exception e) {
+                log.warn("新存储切换前准备失败: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void notifyListeners(List<Runnable> callbacks) {
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (Exception e) {
+                log.warn("知识库切换回调执行失败: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void retire(VectorStore previous) {
+        if (previous instanceof AutoCloseable closeable) {
+            executor.schedule(() -> {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("关闭旧向量存储失败: {}", e.getMessage());
+                }
+            }, gracePeriod.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private String fingerprint() {
+        StringBuilder sb = new StringBuilder();
+        for (Path file : watchedFiles) {
+            sb.append(file).append('@');
+            try {
+                if (Files.exists(file)) {
+                    sb.append(Files.getLastModifiedTime(file).toMillis()).append(':').append(Files.size(file));
+                }
+            } catch (IOException e) {
+                sb.append("error");
+            }
+            sb.append(';');
+        }
+        return sb.toString();
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("watchedFiles", watchedFiles.stream().map(Path::toString).toList());
+        stats.put("reloads", reloads);
+        stats.put("failures", failures);
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("inProgress", pending != null && !pending.isDone());
+        stats.put("last", lastResult);
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,379 @@
+package com.cubigdata.vector;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.observation.conventions.VectorStoreProvider;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.util.JacksonUtils;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * 基于内存映射快照的向量存储
+ * <p>
+ * 快照中的向量与文本留在映射区， 不进入堆； 运行期新增的文档放在堆内增量区， 删除以 id 标记。
+ * 检索为精确的暴力扫描， 语义与 SimpleVectorStore 一致。
+ * <p>
+ * 开启量化（int8 / PQ）时快照向量额外编码为堆内量化码， 先按量化码近似打分取 topK * rescoreFactor 个候选，
+ * 再读取映射区的 float 向量精确重打分； 常驻内存只有量化码， float 向量仅在重打分时按页读入。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 23:20
+ */
+@Slf4j
+public class MappedVectorStore extends AbstractObservationVectorStore implements FileBackedVectorStore, AutoCloseable {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModules(JacksonUtils.instantiateAvailableModules())
+            .build();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private VectorSnapshot snapshot;
+    private final Map<String, Integer> rowById = new HashMap<>();
+    private final Set<String> deleted = new HashSet<>();
+    private final Map<String, VectorSnapshot.Entry> overlay = new LinkedHashMap<>();
+
+    private final VectorQuantizer.Type quantization;
+    private final int rescoreFactor;
+    private final int pqSubspaces;
+    private QuantizedIndex quantized;
+
+    protected MappedVectorStore(Builder builder) {
+        super(builder);
+        this.quantization = builder.quantization;
+        this.rescoreFactor = builder.rescoreFactor;
+        this.pqSubspaces = builder.pqSubspaces;
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel) {
+        return new Builder(embeddingModel);
+    }
+
+    @Override
+    public void doAdd(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptionsBuilder.builder().build(), batchingStrategy);
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                if (rowById.containsKey(document.getId())) {
+                    deleted.add(document.getId());
+                }
+                overlay.put(document.getId(), new VectorSnapshot.Entry(document.getId(), document.getText(),
+                        document.getMetadata(), VectorMath.normalize(embeddings.get(i))));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void doDelete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            for (String id : idList) {
+                overlay.remove(id);
+                if (rowById.containsKey(id)) {
+                    deleted.add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> doSimilaritySearch(SearchRequest request) {
+        float[] query = VectorMath.normalize(embeddingModel.embed(request.getQuery()));
+        Predicate<Map<String, Object>> filter = MetadataFilter.of(request);
+        int topK = request.getTopK();
+        lock.readLock().lock();
+        try {
+            PriorityQueue<Hit> best = new PriorityQueue<>((a, b) -> Float.compare(a.score(), b.score()));
+            if (snapshot != null && quantized != null) {
+                IntPredicate accept = row -> (deleted.isEmpty() || !deleted.contains(snapshot.id(row)))
+                        && (filter == null || filter.test(snapshot.metadata(row)));
+                for (HnswIndex.Scored scored : quantized.search(query, topK, topK * rescoreFactor, accept, snapshot::dot)) {
+                    if (scored.score() >= request.getSimilarityThreshold()) {
+                        offer(best, new Hit(scored.node(), null, scored.score()), topK);
+                    }
+                }
+            } else if (snapshot != null) {
+                float[] scores = snapshot.scores(query);
+                for (int row = 0; row < scores.length; row++) {
+                    float score = scores[row];
+                    if (score < request.getSimilarityThreshold() || (best.size() >= topK && score <= best.peek().score())) {
+                        continue;
+                    }
+                    if (!deleted.isEmpty() && deleted.contains(snapshot.id(row))) {
+                        continue;
+                    }
+                    if (filter != null && !filter.test(snapshot.metadata(row))) {
+                        continue;
+                    }
+                    offer(best, new Hit(row, null, score), topK);
+                }
+            }
+            for (VectorSnapshot.Entry entry : overlay.values()) {
+                float score = VectorMath.dot(query, entry.embedding());
+                if (score < request.getSimilarityThreshold()
+                        || (filter != null && !filter.test(entry.metadata()))) {
+                    continue;
+                }
+                offer(best, new Hit(-1, entry, score), topK);
+            }
+            List<Hit> hits = new ArrayList<>(best);
+            hits.sort((a, b) -> Float.compare(b.score(), a.score()));
+            List<Document> documents = new ArrayList<>(hits.size());
+            for (Hit hit : hits) {
+                documents.add(toDocument(hit));
+            }
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+        return VectorStoreObservationContext.builder(VectorStoreProvider.SIMPLE.value(), operationName)
+                .dimensions(snapshot != null ? snapshot.dimensions() : null)
+                .collectionName("mapped-snapshot")
+                .similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+    }
+
+    @Override
+    public void loadSnapshot(VectorSnapshot snapshot) {
+        QuantizedIndex quantizedIndex = null;
+        if (quantization != VectorQuantizer.Type.NONE && snapshot.count() > 0) {
+            long start = System.currentTimeMillis();
+            VectorQuantizer quantizer = VectorQuantizer.train(quantization, snapshot.count(), snapshot.dimensions(),
+                    snapshot::vector, pqSubspaces);
+            quantizedIndex = QuantizedIndex.build(quantizer, snapshot.count(), snapshot::vector);
+            log.info("向量量化完成: {}, 每条 {} 字节（float32 为 {} 字节）, 耗时 {} ms", quantization,
+                    quantizer.codeSize(), snapshot.dimensions() * Float.BYTES, System.currentTimeMillis() - start);
+        }
+        Map<String, Integer> rows = new HashMap<>(snapshot.count() * 2);
+        for (int row = 0; row < snapshot.count(); row++) {
+            rows.put(snapshot.id(row), row);
+        }
+        lock.writeLock().lock();
+        try {
+            closeSnapshot();
+            this.snapshot = snapshot;
+            this.quantized = quantizedIndex;
+            rowById.clear();
+            rowById.putAll(rows);
+            deleted.clear();
+            overlay.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("向量快照已映射: {}, 文档数 {}, 维度 {}", snapshot.path(), snapshot.count(), snapshot.dimensions());
+    }
+
+    /**
+     * 加载 SimpleVectorStore 的 JSON 文件： 先转换为同目录下的快照再映射
+     */
+    @Override
+    public void load(File json) {
+        try {
+            Path target = json.toPath().resolveSibling(json.getName() + ".vsnap");
+            VectorSnapshot.convertJson(json.toPath(), target);
+            loadSnapshot(VectorSnapshot.open(target));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void save(File json) {
+        Map<String, Map<String, Object>> contents = new LinkedHashMap<>();
+        for (VectorSnapshot.Entry entry : entries()) {
+            Map<String, Object> content = new LinkedHashMap<>();
+            content.put("id", entry.id());
+            content.put("text", entry.text());
+            content.put("metadata", entry.metadata());
+            content.put("embedding", entry.embedding());
+            contents.put(entry.id(), content);
+        }
+        try {
+            FileBackedVectorStore.replaceAtomically(json, tmp -> objectMapper.writerWithDefaultPrettyPrinter().writeValue(tmp, contents));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void saveSnapshot(Path path) throws IOException {
+        VectorSnapshot.write(path, entries());
+    }
+
+    @Override
+    public Map<String, String> contents() {
+        lock.readLock().lock();
+        try {
+            Map<String, String> contents = new LinkedHashMap<>();
+            if (snapshot != null) {
+                for (int row = 0; row < snapshot.count(); row++) {
+                    String id = snapshot.id(row);
+                    if (!deleted.contains(id)) {
+                        contents.put(id, snapshot.text(row));
+                    }
+                }
+            }
+            overlay.values().forEach(entry -> contents.put(entry.id(), entry.text()));
+            return contents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 快照的量化索引， 未开启量化时为 null
+     */
+    public QuantizedIndex quantizedIndex() {
+        return quantized;
+    }
+
+    public VectorSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return (snapshot == null ? 0 : snapshot.count()) - deleted.size() + overlay.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<VectorSnapshot.Entry> entries() {
+        lock.readLock().lock();
+        try {
+            List<VectorSnapshot.Entry> entries = new ArrayList<>();
+            if (snapshot != null) {
+                for (int row = 0; row < snapshot.count(); row++) {
+                    String id = snapshot.id(row);
+                    if (!deleted.contains(id)) {
+                        entries.add(new VectorSnapshot.Entry(id, snapshot.text(row), snapshot.metadata(row), snapshot.vector(row)));
+                    }
+                }
+            }
+            entries.addAll(overlay.values());
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 关闭快照文件； 映射区在存储对象被回收前仍然有效
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            closeSnapshot();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void closeSnapshot() {
+        if (snapshot != null) {
+            try {
+                snapshot.close();
+            } catch (IOException e) {
+                log.warn("关闭向量快照失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static void offer(PriorityQueue<Hit> best, Hit hit, int topK) {
+        best.offer(hit);
+        if (best.size() > topK) {
+            best.poll();
+        }
+    }
+
+    private Document toDocument(Hit hit) {
+        String id = hit.entry() != null ? hit.entry().id() : snapshot.id(hit.row());
+        String text = hit.entry() != null ? hit.entry().text() : snapshot.text(hit.row());
+        Map<String, Object> meta = new HashMap<>(hit.entry() != null ? hit.entry().metadata() : snapshot.metadata(hit.row()));
+        meta.put("distance", 1.0f - hit.score());
+        return Document.builder()
+                .id(id)
+                .text(text)
+                .metadata(meta)
+                .score((double) hit.score())
+                .build();
+    }
+
+    /**
+     * row 为快照行号， 增量区命中时 row 为 -1
+     */
+    private record Hit(int row, VectorSnapshot.Entry entry, float score) {
+    }
+
+    public static class Builder extends AbstractVectorStoreBuilder<Builder> {
+
+        private VectorQuantizer.Type quantization = VectorQuantizer.Type.NONE;
+        private int rescoreFactor = 4;
+        private int pqSubspaces = 0;
+
+        private Builder(EmbeddingModel embeddingModel) {
+            super(embeddingModel);
+        }
+
+        public Builder quantization(VectorQuantizer.Type quantization) {
+            this.quantization = quantization;
+            return this;
+        }
+
+        /**
+         * 重打分候选数为 topK 的倍数， 取 1 时不重打分
+         */
+        public Builder rescoreFactor(int rescoreFactor) {
+            this.rescoreFactor = Math.max(1, rescoreFactor);
+            return this;
+        }
+
+        public Builder pqSubspaces(int pqSubspaces) {
+            this.pqSubspaces = pqSubspaces;
+            return this;
+        }
+
+        @Override
+        public MappedVectorStore build() {
+            return new MappedVectorStore(this);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.cubigdata.vector;
+
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 元数据过滤， 与 SimpleVectorStore 相同， 将过滤表达式转换为 SpEL 后对 #metadata 求值
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 22:30
+ */
+public final class MetadataFilter {
+
+    private static final FilterExpressionConverter CONVERTER = new SimpleVectorStoreFilterExpressionConverter();
+    private static final ExpressionParser PARSER = new SpelExpressionParser();
+
+    private MetadataFilter() {
+    }
+
+    /**
+     * 请求不带过滤表达式时返回 null
+     */
+    public static Predicate<Map<String, Object>> of(SearchRequest request) {
+        if (!request.hasFilterExpression()) {
+            return null;
+        }
+        Expression expression = PARSER.parseExpression(CONVERTER.convertExpression(request.getFilterExpression()));
+        return metadata -> {
+            StandardEvaluationContext context = new StandardEvaluationContext();
+            context.setVariable("metadata", metadata);
+            return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+        };
+    }
+}
@@ -0,0 +1,164 @@
+package com.cubigdata.vector;
+
+import java.util.Random;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * 乘积量化（PQ）： 向量按维度切分为若干子空间， 每个子空间用 k-means 训练 256 个中心， 每个子空间编码为 1 字节
+ * <p>
+ * 检索时先为查询在每个子空间上算出与全部中心的点积表， 候选打分只需查表累加。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 23:50
+ */
+public final class ProductQuantizer implements VectorQuantizer {
+
+    private static final int CENTROIDS = 256;
+    private static final int TRAIN_SAMPLES = 10_000;
+    private static final int ITERATIONS = 10;
+    private static final long SEED = 42;
+
+    private final int dimensions;
+    /**
+     * 子空间 s 覆盖的维度为 [bounds[s], bounds[s + 1])
+     */
+    private final int[] bounds;
+    /**
+     * centroids[s] 为子空间 s 的中心， 按 centroid * subDim 连续存放
+     */
+    private final float[][] centroids;
+    private final int[] centroidCount;
+
+    private ProductQuantizer(int dimensions, int[] bounds, float[][] centroids, int[] centroidCount) {
+        this.dimensions = dimensions;
+        this.bounds = bounds;
+        this.centroids = centroids;
+        this.centroidCount = centroidCount;
+    }
+
+    public static ProductQuantizer train(int count, int dimensions, IntFunction<float[]> vectors, int subspaces) {
+        if (subspaces > dimensions) {
+            throw new IllegalArgumentException("PQ 子空间数不能大于维度: " + subspaces + " > " + dimensions);
+        }
+        int[] bounds = new int[subspaces + 1];
+        for (int s = 0; s <= subspaces; s++) {
+            bounds[s] = (int) ((long) s * dimensions / subspaces);
+        }
+        Random random = new Random(SEED);
+        int sampleSize = Math.min(count, TRAIN_SAMPLES);
+        int[] rows = random.ints(0, Math.max(1, count)).distinct().limit(sampleSize).toArray();
+        float[][] sample = new float[rows.length][];
+        for (int i = 0; i < rows.length; i++) {
+            sample[i] = vectors.apply(rows[i]);
+        }
+        float[][] centroids = new float[subspaces][];
+        int[] centroidCount = new int[subspaces];
+        IntStream.range(0, subspaces).parallel().forEach(s -> {
+            int k = Math.max(1, Math.min(CENTROIDS, sample.length));
+            centroidCount[s] = k;
+            centroids[s] = kMeans(sample, bounds[s], bounds[s + 1] - bounds[s], k, new Random(SEED + s));
+        });
+        return new ProductQuantizer(dimensions, bounds, centroids, centroidCount);
+    }
+
+    private static float[] kMeans(float[][] sample, int from, int subDim, int k, Random random) {
+        float[] centers = new float[k * subDim];
+        for (int c = 0; c < k && c < sample.length; c++) {
+            System.arraycopy(sample[c], from, centers, c * subDim, subDim);
+        }
+        if (sample.length == 0) {
+            return centers;
+        }
+        int[] assignment = new int[sample.length];
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            for (int i = 0; i < sample.length; i++) {
+                assignment[i] = nearest(centers, k, subDim, sample[i], from);
+            }
+            double[] sums = new double[k * subDim];
+            int[] sizes = new int[k];
+            for (int i = 0; i < sample.length; i++) {
+                int c = assignment[i];
+                sizes[c]++;
+                for (int d = 0; d < subDim; d++) {
+                    sums[c * subDim + d] += sample[i][from + d];
+                }
+            }
+            for (int c = 0; c < k; c++) {
+                if (sizes[c] == 0) {
+                    // 空簇重新取一个随机样本作为中心
+                    System.arraycopy(sample[random.nextInt(sample.length)], from, centers, c * subDim, subDim);
+                    continue;
+                }
+                for (int d = 0; d < subDim; d++) {
+                    centers[c * subDim + d] = (float) (sums[c * subDim + d] / sizes[c]);
+                }
+            }
+        }
+        return centers;
+    }
+
+    private static int nearest(float[] centers, int k, int subDim, float[] vector, int from) {
+        int best = 0;
+        float bestDistance = Float.POSITIVE_INFINITY;
+        for (int c = 0; c < k; c++) {
+            float distance = 0;
+            int base = c * subDim;
+            for (int d = 0; d < subDim; d++) {
+                float diff = vector[from + d] - centers[base + d];
+                distance += diff * diff;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public Type type() {
+        return Type.PQ;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public int codeSize() {
+        return centroids.length;
+    }
+
+    @Override
+    public void encode(float[] vector, byte[] codes, int offset) {
+        for (int s = 0; s < centroids.length; s++) {
+            int subDim = bounds[s + 1] - bounds[s];
+            codes[offset + s] = (byte) nearest(centroids[s], centroidCount[s], subDim, vector, bounds[s]);
+        }
+    }
+
+    @Override
+    public CodeScorer scorer(float[] query) {
+        int subspaces = centroids.length;
+        float[] table = new float[subspaces * CENTROIDS];
+        for (int s = 0; s < subspaces; s++) {
+            int subDim = bounds[s + 1] - bounds[s];
+            for (int c = 0; c < centroidCount[s]; c++) {
+                float dot = 0;
+                for (int d = 0; d < subDim; d++) {
+                    dot += query[bounds[s] + d] * centroids[s][c * subDim + d];
+                }
+                table[s * CENTROIDS + c] = dot;
+            }
+        }
+        return (codes, offset) -> {
+            float sum = 0;
+            for (int s = 0; s < subspaces; s++) {
+                sum += table[s * CENTROIDS + (codes[offset + s] & 0xFF)];
+            }
+            return sum;
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package com.cubigdata.vector;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * 量化编码的暴力检索索引
+ * <p>
+ * 先以量化码近似打分取出 candidates 个候选， 再用原始 float 向量精确重打分取 top-k；
+ * candidates 小于等于 k 时不重打分， 直接返回近似分数。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 23:50
+ */
+public final class QuantizedIndex {
+
+    private static final Comparator<HnswIndex.Scored> BY_SCORE = Comparator.comparingDouble(HnswIndex.Scored::score);
+
+    /**
+     * 原始 float 向量的精确打分， 一般直接读内存映射的快照
+     */
+    @FunctionalInterface
+    public interface ExactScorer {
+        float score(int row, float[] query);
+    }
+
+    private final VectorQuantizer quantizer;
+    private final byte[] codes;
+    private final int count;
+
+    private QuantizedIndex(VectorQuantizer quantizer, byte[] codes, int count) {
+        this.quantizer = quantizer;
+        this.codes = codes;
+        this.count = count;
+    }
+
+    public static QuantizedIndex build(VectorQuantizer quantizer, int count, IntFunction<float[]> vectors) {
+        byte[] codes = new byte[Math.multiplyExact(count, quantizer.codeSize())];
+        for (int row = 0; row < count; row++) {
+            quantizer.encode(vectors.apply(row), codes, row * quantizer.codeSize());
+        }
+        return new QuantizedIndex(quantizer, codes, count);
+    }
+
+    public VectorQuantizer quantizer() {
+        return quantizer;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 编码占用的堆内存字节数
+     */
+    public long memoryBytes() {
+        return codes.length;
+    }
+
+    /**
+     * @param accept 行过滤（删除标记、元数据过滤）， 为 null 时不过滤
+     * @param exact  精确打分， 为 null 或 candidates 不大于 k 时直接返回近似分数
+     */
+    public List<HnswIndex.Scored> search(float[] query, int k, int candidates, IntPredicate accept, ExactScorer exact) {
+        boolean rescore = exact != null && candidates > k;
+        int limit = rescore ? candidates : k;
+        VectorQuantizer.CodeScorer scorer = quantizer.scorer(query);
+        int codeSize = quantizer.codeSize();
+        PriorityQueue<HnswIndex.Scored> best = new PriorityQueue<>(BY_SCORE);
+        for (int row = 0; row < count; row++) {
+            float score = scorer.score(codes, row * codeSize);
+            if (best.size() >= limit && score <= best.peek().score()) {
+                continue;
+            }
+            if (accept != null && !accept.test(row)) {
+                continue;
+            }
+            best.offer(new HnswIndex.Scored(row, score));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<HnswIndex.Scored> result = new ArrayList<>(best.size());
+        for (HnswIndex.Scored candidate : best) {
+            result.add(rescore ? new HnswIndex.Scored(candidate.node(), exact.score(candidate.node(), query)) : candidate);
+        }
+        result.sort(BY_SCORE.reversed());
+        return result.size() > k ? new ArrayList<>(result.subList(0, k)) : result;
+    }
+}
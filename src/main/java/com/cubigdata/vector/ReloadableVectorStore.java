@@ -0,0 +1,69 @@
+package com.cubigdata.vector;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 可原子替换的向量存储
+ * <p>
+ * KnowledgeRetrievalNode 等调用方持有本对象， 每次调用时读取一次当前存储：
+ * 替换前已开始的检索在旧存储上完成， 替换后的检索只会看到已完整加载的新存储。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 02:40
+ */
+public class ReloadableVectorStore implements VectorStore {
+
+    private final AtomicReference<VectorStore> current;
+
+    public ReloadableVectorStore(VectorStore initial) {
+        this.current = new AtomicReference<>(initial);
+    }
+
+    public VectorStore current() {
+        return current.get();
+    }
+
+    /**
+     * 替换为新存储， 返回被替换的旧存储
+     */
+    public VectorStore swap(VectorStore next) {
+        return current.getAndSet(next);
+    }
+
+    @Override
+    public String getName() {
+        return current.get().getName();
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        current.get().add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        current.get().delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        current.get().delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        return current.get().similaritySearch(request);
+    }
+
+    @Override
+    public <T> Optional<T> getNativeClient() {
+        return current.get().getNativeClient();
+    }
+}
@@ -0,0 +1,88 @@
+package com.cubigdata.vector;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * int8 标量量化： 每个维度按训练集上的 [min, max] 线性映射到 256 档， 存储为原来的 1/4
+ * <p>
+ * 打分时查询保持 float： dot ≈ Σ q[i] * (min[i] + scale[i] * (code[i] + 128))，
+ * 其中与编码无关的部分在 scorer 中预先算好。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 23:50
+ */
+public final class ScalarQuantizer implements VectorQuantizer {
+
+    private final float[] min;
+    private final float[] scale;
+
+    private ScalarQuantizer(float[] min, float[] scale) {
+        this.min = min;
+        this.scale = scale;
+    }
+
+    public static ScalarQuantizer train(int count, int dimensions, IntFunction<float[]> vectors) {
+        float[] min = new float[dimensions];
+        float[] max = new float[dimensions];
+        Arrays.fill(min, Float.POSITIVE_INFINITY);
+        Arrays.fill(max, Float.NEGATIVE_INFINITY);
+        for (int row = 0; row < count; row++) {
+            float[] vector = vectors.apply(row);
+            for (int i = 0; i < dimensions; i++) {
+                min[i] = Math.min(min[i], vector[i]);
+                max[i] = Math.max(max[i], vector[i]);
+            }
+        }
+        float[] scale = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            if (count == 0) {
+                min[i] = 0;
+                max[i] = 0;
+            }
+            scale[i] = (max[i] - min[i]) / 255f;
+        }
+        return new ScalarQuantizer(min, scale);
+    }
+
+    @Override
+    public Type type() {
+        return Type.INT8;
+    }
+
+    @Override
+    public int dimensions() {
+        return min.length;
+    }
+
+    @Override
+    public int codeSize() {
+        return min.length;
+    }
+
+    @Override
+    public void encode(float[] vector, byte[] codes, int offset) {
+        for (int i = 0; i < min.length; i++) {
+            int level = scale[i] == 0 ? 0 : Math.round((vector[i] - min[i]) / scale[i]);
+            codes[offset + i] = (byte) (Math.max(0, Math.min(255, level)) - 128);
+        }
+    }
+
+    @Override
+    public CodeScorer scorer(float[] query) {
+        float[] weights = new float[min.length];
+        float bias = 0;
+        for (int i = 0; i < min.length; i++) {
+            weights[i] = query[i] * scale[i];
+            bias += query[i] * min[i] + 128 * weights[i];
+        }
+        float constant = bias;
+        return (codes, offset) -> {
+            float sum = 0;
+            for (int i = 0; i < weights.length; i++) {
+                sum += weights[i] * codes[offset + i];
+            }
+            return sum + constant;
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package com.cubigdata.vector;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 标量打分内核， Vector API 不可用时使用； matrix 须为小端字节序
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 00:30
+ */
+final class ScalarSimilarityKernel implements SimilarityKernel {
+
+    static final ScalarSimilarityKernel INSTANCE = new ScalarSimilarityKernel();
+
+    private ScalarSimilarityKernel() {
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(ByteBuffer matrix, int row, int dimensions, float[] query) {
+        int base = row * dimensions * Float.BYTES;
+        float sum = 0;
+        for (int i = 0; i < dimensions; i++) {
+            sum += matrix.getFloat(base + i * Float.BYTES) * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void scores(ByteBuffer matrix, int rows, int dimensions, float[] query, float[] scores) {
+        for (int row = 0; row < rows; row++) {
+            scores[row] = dot(matrix, row, dimensions, query);
+        }
+    }
+
+    @Override
+    public void scores(ByteBuffer matrix, int rows, int dimensions, float[][] queries, float[][] scores) {
+        for (int row = 0; row < rows; row++) {
+            int base = row * dimensions * Float.BYTES;
+            for (int q = 0; q < queries.length; q++) {
+                float[] query = queries[q];
+                float sum = 0;
+                for (int i = 0; i < dimensions; i++) {
+                    sum += matrix.getFloat(base + i * Float.BYTES) * query[i];
+                }
+                scores[q][row] = sum;
+            }
+        }
+    }
+}
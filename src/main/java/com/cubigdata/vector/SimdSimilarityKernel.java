@@ -0,0 +1,113 @@
+package com.cubigdata.vector;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 基于 JDK Vector API 的打分内核， 由 {@link SimilarityKernel#get()} 反射加载
+ * <p>
+ * 多查询打分时每次读取矩阵的一段， 同时与 4 个查询做 FMA， 矩阵每行只从内存读取一次。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 00:30
+ */
+final class SimdSimilarityKernel implements SimilarityKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final int QUERY_BLOCK = 4;
+
+    @Override
+    public String name() {
+        return "simd(" + SPECIES.vectorBitSize() + "bit)";
+    }
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        int bound = SPECIES.loopBound(a.length);
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            acc = FloatVector.fromArray(SPECIES, a, i).fma(FloatVector.fromArray(SPECIES, b, i), acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(ByteBuffer matrix, int row, int dimensions, float[] query) {
+        int base = row * dimensions * Float.BYTES;
+        int bound = SPECIES.loopBound(dimensions);
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            FloatVector v = FloatVector.fromByteBuffer(SPECIES, matrix, base + i * Float.BYTES, ORDER);
+            acc = v.fma(FloatVector.fromArray(SPECIES, query, i), acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < dimensions; i++) {
+            sum += matrix.getFloat(base + i * Float.BYTES) * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void scores(ByteBuffer matrix, int rows, int dimensions, float[] query, float[] scores) {
+        for (int row = 0; row < rows; row++) {
+            scores[row] = dot(matrix, row, dimensions, query);
+        }
+    }
+
+    @Override
+    public void scores(ByteBuffer matrix, int rows, int dimensions, float[][] queries, float[][] scores) {
+        int blocked = queries.length - queries.length % QUERY_BLOCK;
+        int bound = SPECIES.loopBound(dimensions);
+        for (int row = 0; row < rows; row++) {
+            int base = row * dimensions * Float.BYTES;
+            for (int q = 0; q < blocked; q += QUERY_BLOCK) {
+                float[] q0 = queries[q];
+                float[] q1 = queries[q + 1];
+                float[] q2 = queries[q + 2];
+                float[] q3 = queries[q + 3];
+                FloatVector acc0 = FloatVector.zero(SPECIES);
+                FloatVector acc1 = FloatVector.zero(SPECIES);
+                FloatVector acc2 = FloatVector.zero(SPECIES);
+                FloatVector acc3 = FloatVector.zero(SPECIES);
+                int i = 0;
+                for (; i < bound; i += LANES) {
+                    FloatVector v = FloatVector.fromByteBuffer(SPECIES, matrix, base + i * Float.BYTES, ORDER);
+                    acc0 = v.fma(FloatVector.fromArray(SPECIES, q0, i), acc0);
+                    acc1 = v.fma(FloatVector.fromArray(SPECIES, q1, i), acc1);
+                    acc2 = v.fma(FloatVector.fromArray(SPECIES, q2, i), acc2);
+                    acc3 = v.fma(FloatVector.fromArray(SPECIES, q3, i), acc3);
+                }
+                float s0 = acc0.reduceLanes(VectorOperators.ADD);
+                float s1 = acc1.reduceLanes(VectorOperators.ADD);
+                float s2 = acc2.reduceLanes(VectorOperators.ADD);
+                float s3 = acc3.reduceLanes(VectorOperators.ADD);
+                for (; i < dimensions; i++) {
+                    float v = matrix.getFloat(base + i * Float.BYTES);
+                    s0 += v * q0[i];
+                    s1 += v * q1[i];
+                    s2 += v * q2[i];
+                    s3 += v * q3[i];
+                }
+                scores[q][row] = s0;
+                scores[q + 1][row] = s1;
+                scores[q + 2][row] = s2;
+                scores[q + 3][row] = s3;
+            }
+            for (int q = blocked; q < queries.length; q++) {
+                scores[q][row] = dot(matrix, row, dimensions, queries[q]);
+            }
+        }
+    }
+}
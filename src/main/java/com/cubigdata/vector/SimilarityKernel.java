@@ -0,0 +1,80 @@
+package com.cubigdata.vector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 向量点积打分内核
+ * <p>
+ * 矩阵为连续存放的小端 float32 行（与 {@link VectorSnapshot} 的向量块一致）， 行 row 起始于 row * dimensions * 4 字节。
+ * 运行时带 --add-modules jdk.incubator.vector 时使用 Vector API 实现， 否则退化为标量实现；
+ * 也可通过 -Dvector.simd.enabled=false 强制使用标量实现。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 00:30
+ */
+public interface SimilarityKernel {
+
+    String name();
+
+    float dot(float[] a, float[] b);
+
+    float dot(ByteBuffer matrix, int row, int dimensions, float[] query);
+
+    /**
+     * 单个查询对矩阵前 rows 行打分， 结果写入 scores[0, rows)
+     */
+    void scores(ByteBuffer matrix, int rows, int dimensions, float[] query, float[] scores);
+
+    /**
+     * 多个查询对矩阵打分， 每行只读取一次， scores[q] 为第 q 个查询的结果
+     */
+    void scores(ByteBuffer matrix, int rows, int dimensions, float[][] queries, float[][] scores);
+
+    static SimilarityKernel get() {
+        return Holder.INSTANCE;
+    }
+
+    static SimilarityKernel scalar() {
+        return ScalarSimilarityKernel.INSTANCE;
+    }
+
+    /**
+     * Vector API 实现， 模块不可用时为 null
+     */
+    static SimilarityKernel simd() {
+        return Holder.SIMD;
+    }
+
+    final class Holder {
+        private static final Logger log = LoggerFactory.getLogger(SimilarityKernel.class);
+        private static final SimilarityKernel SIMD = loadSimd();
+        private static final SimilarityKernel INSTANCE = select();
+
+        private Holder() {
+        }
+
+        private static SimilarityKernel loadSimd() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+                return null;
+            }
+            try {
+                // 反射加载， 避免模块缺失时链接 jdk.incubator.vector
+                return (SimilarityKernel) Class.forName("com.cubigdata.vector.SimdSimilarityKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.warn("Vector API 打分内核加载失败， 使用标量实现: {}", e.toString());
+                return null;
+            }
+        }
+
+        private static SimilarityKernel select() {
+            boolean enabled = Boolean.parseBoolean(System.getProperty("vector.simd.enabled", "true"));
+            SimilarityKernel kernel = enabled && SIMD != null ? SIMD : ScalarSimilarityKernel.INSTANCE;
+            log.info("向量打分内核: {}", kernel.name());
+            return kernel;
+        }
+    }
+}
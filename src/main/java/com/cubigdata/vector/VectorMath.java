@@ -0,0 +1,33 @@
+package com.cubigdata.vector;
+
+/**
+ * 向量计算工具， 存储的向量均已归一化， 点积即余弦相似度
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 22:30
+ */
+public final class VectorMath {
+
+    private VectorMath() {
+    }
+
+    public static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += (double) v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    public static float dot(float[] a, float[] b) {
+        return SimilarityKernel.get().dot(a, b);
+    }
+}
@@ -0,0 +1,54 @@
+package com.cubigdata.vector;
+
+import java.util.Locale;
+import java.util.function.IntFunction;
+
+/**
+ * 向量量化器： 将归一化后的 float 向量编码为定长字节码， 并以非对称方式（查询保持 float）估算点积
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 23:50
+ */
+public interface VectorQuantizer {
+
+    enum Type {
+        NONE, INT8, PQ;
+
+        public static Type of(String value) {
+            return value == null || value.isBlank() ? NONE : valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * 针对单个查询预计算后的打分器， 非线程安全， 每次检索新建
+     */
+    interface CodeScorer {
+        float score(byte[] codes, int offset);
+    }
+
+    Type type();
+
+    int dimensions();
+
+    /**
+     * 每个向量编码后的字节数
+     */
+    int codeSize();
+
+    void encode(float[] vector, byte[] codes, int offset);
+
+    CodeScorer scorer(float[] query);
+
+    /**
+     * 以 vectors 中的向量训练量化器
+     * @param pqSubspaces PQ 子空间数， 小于等于 0 时取 dimensions / 8
+     */
+    static VectorQuantizer train(Type type, int count, int dimensions, IntFunction<float[]> vectors, int pqSubspaces) {
+        return switch (type) {
+            case INT8 -> ScalarQuantizer.train(count, dimensions, vectors);
+            case PQ -> ProductQuantizer.train(count, dimensions, vectors,
+                    pqSubspaces > 0 ? pqSubspaces : Math.max(1, dimensions / 8));
+            case NONE -> throw new IllegalArgumentException("未指定量化方式");
+        };
+    }
+}
@@ -0,0 +1,154 @@
+package com.cubigdata.vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+
+/**
+ * 近似检索召回率与延迟基准
+ * <p>
+ * 以精确检索（与 SimpleVectorStore 相同的暴力扫描）的 top-k 为基准， 统计近似检索（HNSW、量化）的 recall@k 与单次检索延迟。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 22:30
+ */
+public final class VectorSearchBenchmark {
+
+    private VectorSearchBenchmark() {
+    }
+
+    /**
+     * 单组检索的统计结果， 延迟单位为微秒
+     */
+    public record Result(String name, double recall, double avgMicros, double p50Micros, double p99Micros) {
+    }
+
+    public record Report(int size, int queries, int k, Result exact, List<Result> candidates) {
+    }
+
+    /**
+     * 对 HNSW 索引在不同 efSearch 下分别测量
+     */
+    public static Report runHnsw(HnswIndex index, List<float[]> queries, int k, List<Integer> efValues) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (int ef : efValues) {
+            candidates.add(new Candidate("hnsw(efSearch=" + ef + ")", (query, topK) -> nodes(index.search(query, topK, ef))));
+        }
+        return run(index, queries, k, candidates);
+    }
+
+    /**
+     * 近似检索实现， search 返回节点编号
+     */
+    public record Candidate(String name, BiFunction<float[], Integer, int[]> search) {
+    }
+
+    public static Report run(HnswIndex index, List<float[]> queries, int k, List<Candidate> candidates) {
+        return run(index.liveSize(), new Candidate("exact", (query, topK) -> nodes(index.exactSearch(query, topK))),
+                queries, k, candidates);
+    }
+
+    /**
+     * 对量化检索在不同量化方式、重打分倍数下分别测量， 基准为 float 向量的精确检索
+     * @param rescoreFactors 重打分候选数为 k 的倍数， 1 表示只用量化分数
+     */
+    public static Report runQuantized(int count, int dimensions, IntFunction<float[]> vectors, QuantizedIndex.ExactScorer exact,
+                                      List<float[]> queries, int k, List<VectorQuantizer.Type> types,
+                                      List<Integer> rescoreFactors, int pqSubspaces) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (VectorQuantizer.Type type : types) {
+            if (type == VectorQuantizer.Type.NONE) {
+                continue;
+            }
+            VectorQuantizer quantizer = VectorQuantizer.train(type, count, dimensions, vectors, pqSubspaces);
+            QuantizedIndex index = QuantizedIndex.build(quantizer, count, vectors);
+            for (int factor : rescoreFactors) {
+                String name = type.name().toLowerCase(Locale.ROOT) + "(" + quantizer.codeSize() + "B/vec vs "
+                        + dimensions * Float.BYTES + "B, rescore=" + factor + "x)";
+                candidates.add(new Candidate(name, (query, topK) -> nodes(index.search(query, topK, topK * factor, null, exact))));
+            }
+        }
+        Candidate bruteForce = new Candidate("exact", (query, topK) -> {
+            PriorityQueue<HnswIndex.Scored> best = new PriorityQueue<>(Comparator.comparingDouble(HnswIndex.Scored::score));
+            for (int row = 0; row < count; row++) {
+                best.offer(new HnswIndex.Scored(row, exact.score(row, query)));
+                if (best.size() > topK) {
+                    best.poll();
+                }
+            }
+            return best.stream().mapToInt(HnswIndex.Scored::node).toArray();
+        });
+        return run(count, bruteForce, queries, k, candidates);
+    }
+
+    /**
+     * @param exact 精确检索， 其结果作为召回率基准
+     */
+    public static Report run(int size, Candidate exact, List<float[]> queries, int k, List<Candidate> candidates) {
+        List<int[]> truth = new ArrayList<>(queries.size());
+        long[] exactNanos = new long[queries.size()];
+        // 预热一轮， 避免首轮 JIT 影响
+        queries.forEach(query -> exact.search().apply(query, k));
+        for (int i = 0; i < queries.size(); i++) {
+            long start = System.nanoTime();
+            truth.add(exact.search().apply(queries.get(i), k));
+            exactNanos[i] = System.nanoTime() - start;
+        }
+        Result exactResult = summarize(exact.name(), 1.0, exactNanos);
+
+        List<Result> results = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            queries.forEach(query -> candidate.search().apply(query, k));
+            long[] nanos = new long[queries.size()];
+            double recallSum = 0;
+            for (int i = 0; i < queries.size(); i++) {
+                long start = System.nanoTime();
+                int[] found = candidate.search().apply(queries.get(i), k);
+                nanos[i] = System.nanoTime() - start;
+                recallSum += recall(truth.get(i), found);
+            }
+            results.add(summarize(candidate.name(), queries.isEmpty() ? 0 : recallSum / queries.size(), nanos));
+        }
+        return new Report(size, queries.size(), k, exactResult, results);
+    }
+
+    static int[] nodes(List<HnswIndex.Scored> hits) {
+        return hits.stream().mapToInt(HnswIndex.Scored::node).toArray();
+    }
+
+    private static double recall(int[] truth, int[] found) {
+        if (truth.length == 0) {
+            return 1.0;
+        }
+        Set<Integer> expected = new HashSet<>();
+        for (int node : truth) {
+            expected.add(node);
+        }
+        int hit = 0;
+        for (int node : found) {
+            if (expected.contains(node)) {
+                hit++;
+            }
+        }
+        return (double) hit / truth.length;
+    }
+
+    private static Result summarize(String name, double recall, long[] nanos) {
+        if (nanos.length == 0) {
+            return new Result(name, recall, 0, 0, 0);
+        }
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double avg = Arrays.stream(sorted).average().orElse(0) / 1000.0;
+        double p50 = sorted[(int) Math.ceil(0.50 * sorted.length) - 1] / 1000.0;
+        double p99 = sorted[(int) Math.ceil(0.99 * sorted.length) - 1] / 1000.0;
+        return new Result(name, recall, avg, p50, p99);
+    }
+}
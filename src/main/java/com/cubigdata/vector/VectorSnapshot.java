@@ -0,0 +1,295 @@
+package com.cubigdata.vector;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 二进制向量快照（内存映射读取）
+ * <p>
+ * 文件布局（小端）：
+ * <pre>
+ * header   : magic(int) version(int) count(int) dimensions(int) vectorsOffset(long) indexOffset(long) dataOffset(long)
+ * vectors  : count * dimensions 个 float32， 连续存放， 已归一化， 按 64 字节对齐
+ * index    : count * (dataOffset 内的相对偏移 long, idLength int, textLength int, metadataLength int)
+ * data     : 依次存放 id、text、metadata(JSON) 的 UTF-8 字节
+ * </pre>
+ * 打开时只映射文件并读取 id， 向量与文本按需从映射区读取， 启动耗时与堆占用不随向量规模线性增长。
+ * 单个快照文件不超过 2GB。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 23:20
+ */
+public class VectorSnapshot implements Closeable {
+
+    private static final int MAGIC = 0x56534E50;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 * 4 + 3 * 8;
+    private static final int INDEX_ENTRY_BYTES = 8 + 3 * 4;
+    private static final int ALIGNMENT = 64;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final FloatBuffer vectors;
+    private final ByteBuffer vectorBytes;
+    private final int count;
+    private final int dimensions;
+    private final long indexOffset;
+    private final long dataOffset;
+
+    private VectorSnapshot(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        if (channel.size() > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("向量快照超过 2GB: " + path);
+        }
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        this.buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            channel.close();
+            throw new IOException("不是有效的向量快照文件: " + path);
+        }
+        this.count = buffer.getInt(8);
+        this.dimensions = buffer.getInt(12);
+        long vectorsOffset = buffer.getLong(16);
+        this.indexOffset = buffer.getLong(24);
+        this.dataOffset = buffer.getLong(32);
+        this.vectorBytes = buffer.slice((int) vectorsOffset, count * dimensions * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        this.vectors = vectorBytes.asFloatBuffer();
+    }
+
+    public static VectorSnapshot open(Path path) throws IOException {
+        return new VectorSnapshot(path);
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * 连续存放的向量块， row 行的向量位于 [row * dimensions, (row + 1) * dimensions)
+     */
+    public FloatBuffer vectors() {
+        return vectors.duplicate();
+    }
+
+    public float[] vector(int row) {
+        float[] vector = new float[dimensions];
+        vectors.get(row * dimensions, vector);
+        return vector;
+    }
+
+    public float dot(int row, float[] query) {
+        return SimilarityKernel.get().dot(vectorBytes, row, dimensions, query);
+    }
+
+    /**
+     * 查询对全部向量打分， 结果下标即行号
+     */
+    public float[] scores(float[] query) {
+        float[] scores = new float[count];
+        SimilarityKernel.get().scores(vectorBytes, count, dimensions, query, scores);
+        return scores;
+    }
+
+    /**
+     * 多个查询一次扫描打分， scores[q][row]
+     */
+    public float[][] scores(float[][] queries) {
+        float[][] scores = new float[queries.length][count];
+        SimilarityKernel.get().scores(vectorBytes, count, dimensions, queries, scores);
+        return scores;
+    }
+
+    public String id(int row) {
+        long entry = indexOffset + (long) row * INDEX_ENTRY_BYTES;
+        return string(dataOffset + buffer.getLong((int) entry), buffer.getInt((int) entry + 8));
+    }
+
+    public String text(int row) {
+        long entry = indexOffset + (long) row * INDEX_ENTRY_BYTES;
+        int idLength = buffer.getInt((int) entry + 8);
+        return string(dataOffset + buffer.getLong((int) entry) + idLength, buffer.getInt((int) entry + 12));
+    }
+
+    public Map<String, Object> metadata(int row) {
+        long entry = indexOffset + (long) row * INDEX_ENTRY_BYTES;
+        long start = dataOffset + buffer.getLong((int) entry) + buffer.getInt((int) entry + 8) + buffer.getInt((int) entry + 12);
+        String json = string(start, buffer.getInt((int) entry + 16));
+        if (json.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            return MAPPER.readValue(json, new TypeReference<Map<String, Object>>() {
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException("向量快照元数据损坏: row=" + row, e);
+        }
+    }
+
+    private String string(long offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get((int) offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 快照中的一条记录， embedding 写入时归一化
+     */
+    public record Entry(String id, String text, Map<String, Object> metadata, float[] embedding) {
+    }
+
+    /**
+     * 写入快照， 先写临时文件再原子替换
+     */
+    public static void write(Path target, List<Entry> entries) throws IOException {
+        int dimensions = entries.isEmpty() ? 0 : entries.get(0).embedding().length;
+        List<byte[][]> payloads = new ArrayList<>(entries.size());
+        long dataLength = 0;
+        for (Entry entry : entries) {
+            if (entry.embedding().length != dimensions) {
+                throw new IllegalArgumentException("向量维度不一致: " + entry.id());
+            }
+            byte[][] payload = {
+                    utf8(entry.id()),
+                    utf8(entry.text()),
+                    entry.metadata() == null || entry.metadata().isEmpty() ? new byte[0] : MAPPER.writeValueAsBytes(entry.metadata())
+            };
+            payloads.add(payload);
+            dataLength += payload[0].length + payload[1].length + payload[2].length;
+        }
+
+        long vectorsOffset = align(HEADER_BYTES);
+        long indexOffset = vectorsOffset + (long) entries.size() * dimensions * Float.BYTES;
+        long dataOffset = indexOffset + (long) entries.size() * INDEX_ENTRY_BYTES;
+        if (dataOffset + dataLength > Integer.MAX_VALUE) {
+            throw new IOException("向量快照超过 2GB");
+        }
+
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "vectors_", ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+            ByteBuffer header = ByteBuffer.allocate((int) vectorsOffset).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(entries.size()).putInt(dimensions)
+                    .putLong(vectorsOffset).putLong(indexOffset).putLong(dataOffset);
+            out.write(header.array());
+
+            ByteBuffer row = ByteBuffer.allocate(dimensions * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (Entry entry : entries) {
+                row.clear();
+                for (float v : VectorMath.normalize(entry.embedding())) {
+                    row.putFloat(v);
+                }
+                out.write(row.array());
+            }
+
+            ByteBuffer index = ByteBuffer.allocate(INDEX_ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            long relative = 0;
+            for (byte[][] payload : payloads) {
+                index.clear();
+                index.putLong(relative).putInt(payload[0].length).putInt(payload[1].length).putInt(payload[2].length);
+                out.write(index.array());
+                relative += payload[0].length + payload[1].length + payload[2].length;
+            }
+
+            for (byte[][] payload : payloads) {
+                out.write(payload[0]);
+                out.write(payload[1]);
+                out.write(payload[2]);
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 将 SimpleVectorStore 的 JSON 文件转换为二进制快照， 流式解析， 不整体加载 JSON 树
+     */
+    public static int convertJson(Path json, Path target) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (JsonParser parser = MAPPER.getFactory().createParser(json.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("不是 SimpleVectorStore 的 JSON 格式: " + json);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                parser.nextToken();
+                Map<String, Object> content = parser.readValueAs(new TypeReference<HashMap<String, Object>>() {
+                });
+                entries.add(toEntry(content));
+            }
+        }
+        write(target, entries);
+        return entries.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Entry toEntry(Map<String, Object> content) {
+        List<Number> embedding = (List<Number>) content.get("embedding");
+        float[] vector = new float[embedding.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = embedding.get(i).floatValue();
+        }
+        Object metadata = content.get("metadata");
+        return new Entry(String.valueOf(content.get("id")), (String) content.get("text"),
+                metadata instanceof Map<?, ?> map ? (Map<String, Object>) map : Map.of(), vector);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long align(long offset) {
+        return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /**
+     * 命令行转换： VectorSnapshot &lt;classification_vectors.json&gt; &lt;classification_vectors.vsnap&gt;
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("用法: VectorSnapshot <input.json> <output.vsnap>");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        int count = convertJson(Path.of(args[0]), Path.of(args[1]));
+        System.out.printf("已转换 %d 条向量, 耗时 %d ms%n", count, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -5,21 +5,29 @@ import com.alibaba.cloud.ai.graph.KeyStrategy;
 import com.alibaba.cloud.ai.graph.KeyStrategyFactory;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.action.AsyncEdgeAction;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeAction;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
-import com.alibaba.cloud.ai.graph.node.KnowledgeRetrievalNode;
 import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import com.cubigdata.workflow.checkpoint.BoundedMemorySaver;
 import com.cubigdata.workflow.dispatcher.StructuredValidationDispatcher;
 import com.cubigdata.workflow.nodes.CategoryValidationNode;
 import com.cubigdata.workflow.nodes.ClassificationLLMNode;
-import com.cubigdata.workflow.nodes.SimilarityMatchNode;
 import com.cubigdata.workflow.nodes.StructuredValidationNode;
+import com.cubigdata.workflow.support.CircuitBreaker;
+import com.cubigdata.workflow.support.DeadlineNodeAction;
+import com.cubigdata.workflow.support.DegradableNodeAction;
+import com.cubigdata.workflow.support.OffloadedNodeAction;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -36,12 +44,12 @@ import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
 @Slf4j
 public class ClftGraph {
     private final ClassificationLLMNode classificationLLMNode;
-    private final SimilarityMatchNode similarityMatchNode;
-    private final KnowledgeRetrievalNode knowledgeRetrievalNode;
+    private final AsyncNodeAction similarityMatchNode;
+    private final NodeAction knowledgeRetrievalNode;
     private final CategoryValidationNode categoryValidationNode;
     private final StructuredValidationNode structuredValidationNode;
 
-    public ClftGraph(ClassificationLLMNode classificationLLMNode, SimilarityMatchNode similarityMatchNode, KnowledgeRetrievalNode knowledgeRetrievalNode, CategoryValidationNode categoryValidationNode, StructuredValidationNode structuredValidationNode) {
+    public ClftGraph(ClassificationLLMNode classificationLLMNode, @Qualifier("similarityMatchNode") AsyncNodeAction similarityMatchNode, @Qualifier("knowledgeRetrievalNode") NodeAction knowledgeRetrievalNode, CategoryValidationNode categoryValidationNode, StructuredValidationNode structuredValidationNode) {
         this.classificationLLMNode = classificationLLMNode;
         this.similarityMatchNode = similarityMatchNode;
         this.knowledgeRetrievalNode = knowledgeRetrievalNode;
@@ -50,7 +58,15 @@ public class ClftGraph {
     }
 
     @Bean
-    public StateGraph secGraph(ChatClient.Builder chatClientBuilder, @Qualifier("classificationVectorStore") VectorStore classificationVectorStore) throws GraphStateException {
+    public StateGraph secGraph(ChatClient.Builder chatClientBuilder, @Qualifier("classificationVectorStore") VectorStore classificationVectorStore,
+                               @Qualifier("workflowNodeScheduler") Scheduler nodeScheduler,
+                               @Value("${workflow.timeout.similarity-match:${similarity.match.timeout:30000}}") Duration similarityMatchBudget,
+                               @Value("${workflow.timeout.knowledge-retrieval:10s}") Duration knowledgeRetrievalBudget,
+                               @Value("${workflow.timeout.classification:120s}") Duration classificationBudget,
+                               @Value("${workflow.degrade.similarity-match.enabled:true}") boolean degradeSimilarityMatch,
+                               @Value("${workflow.degrade.knowledge-retrieval.enabled:false}") boolean degradeKnowledgeRetrieval,
+                               @Value("${workflow.degrade.failure-threshold:5}") int failureThreshold,
+                               @Value("${workflow.degrade.open-duration:30s}") Duration openDuration) throws GraphStateException {
         KeyStrategyFactory keyStrategyFactory = () -> {
             HashMap<String, KeyStrategy> keyStrategyHashMap = new HashMap<>();
             keyStrategyHashMap.put("query", new ReplaceStrategy());
@@ -61,13 +77,37 @@ public class ClftGraph {
             keyStrategyHashMap.put("corrected_result", new ReplaceStrategy());
             keyStrategyHashMap.put("incorrected_result", new ReplaceStrategy());
             keyStrategyHashMap.put("is_validate", new ReplaceStrategy());
+            keyStrategyHashMap.put("retry_count", new ReplaceStrategy());
+            keyStrategyHashMap.put("repair_columns", new ReplaceStrategy());
+            keyStrategyHashMap.put(StructuredValidationNode.FALLBACK_KEY, new ReplaceStrategy());
+            keyStrategyHashMap.put("stream_id", new ReplaceStrategy());
+            keyStrategyHashMap.put(DeadlineNodeAction.DEADLINE_KEY, new ReplaceStrategy());
+            keyStrategyHashMap.put(DegradableNodeAction.degradedKey("similarityMatch"), new ReplaceStrategy());
+            keyStrategyHashMap.put(DegradableNodeAction.degradedKey("knowledgeRetrieval"), new ReplaceStrategy());
             return keyStrategyHashMap;
         };
 
+        AsyncNodeAction similarityMatch = DeadlineNodeAction.withDeadline("similarityMatch",
+                similarityMatchNode, similarityMatchBudget);
+        if (degradeSimilarityMatch) {
+            similarityMatch = new DegradableNodeAction("similarityMatch", similarityMatch,
+                    new CircuitBreaker("similarityMatch", failureThreshold, openDuration),
+                    Map.of("similarityMatchResult", Map.of()));
+        }
+        AsyncNodeAction knowledgeRetrieval = DeadlineNodeAction.withDeadline("knowledgeRetrieval",
+                OffloadedNodeAction.offload(knowledgeRetrievalNode, nodeScheduler), knowledgeRetrievalBudget);
+        if (degradeKnowledgeRetrieval) {
+            knowledgeRetrieval = new DegradableNodeAction("knowledgeRetrieval", knowledgeRetrieval,
+                    new CircuitBreaker("knowledgeRetrieval", failureThreshold, openDuration),
+                    Map.of("retrievedDocs", ""));
+        }
+
         StateGraph stateGraph = new StateGraph(keyStrategyFactory)
-                .addNode("similarityMatch", node_async(similarityMatchNode))
-                .addNode("knowledgeRetrieval", node_async(knowledgeRetrievalNode))
-                .addNode("classification", node_async(classificationLLMNode))
+                .addNode("similarityMatch", similarityMatch)
+                .addNode("knowledgeRetrieval", knowledgeRetrieval)
+                // 分类节点基于响应式 ChatClient， 无需线程池； 知识库检索的向量化与索引查询是阻塞/CPU 操作， 仍放在节点调度器上
+                .addNode("classification", DeadlineNodeAction.withDeadline("classification",
+                        classificationLLMNode, classificationBudget))
                 .addNode("categoryValidation", node_async(categoryValidationNode))
                 .addNode("structuredValidation", node_async(structuredValidationNode))
                 .addEdge(START, "similarityMatch")
@@ -85,4 +125,14 @@ public class ClftGraph {
 
         return stateGraph;
     }
+
+    /**
+     * 工作流 checkpoint 存储， 按 threadId 隔离并限制容量与存活时间
+     */
+    @Bean
+    public BoundedMemorySaver secGraphCheckpointSaver(@Value("${workflow.checkpoint.max-entries:1000}") int maxEntries,
+                                                      @Value("${workflow.checkpoint.ttl:10m}") Duration ttl,
+                                                      @Value("${workflow.checkpoint.max-checkpoints-per-thread:20}") int maxCheckpointsPerThread) {
+        return new BoundedMemorySaver(maxEntries, ttl, maxCheckpointsPerThread);
+    }
 }
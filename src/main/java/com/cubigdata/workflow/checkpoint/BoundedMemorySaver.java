@@ -0,0 +1,175 @@
+package com.cubigdata.workflow.checkpoint;
+
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.checkpoint.BaseCheckpointSaver;
+import com.alibaba.cloud.ai.graph.checkpoint.Checkpoint;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * 有界的内存 checkpoint 存储
+ * <p>
+ * 按 threadId 隔离每次请求的图状态， 超过最大线程数时淘汰最久未访问的线程， 超过TTL的线程在后续访问时被清理，
+ * 单个线程只保留最近的若干个 checkpoint， 保证长时间批量运行时堆内存保持平稳。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 11:05
+ */
+@Slf4j
+public class BoundedMemorySaver implements BaseCheckpointSaver {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final int maxCheckpointsPerThread;
+
+    /**
+     * accessOrder=true， 头部为最久未访问的线程
+     */
+    private final LinkedHashMap<String, ThreadCheckpoints> checkpointsByThread = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long evictedCount = 0;
+
+    public BoundedMemorySaver(int maxEntries, Duration ttl, int maxCheckpointsPerThread) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        if (maxCheckpointsPerThread <= 0) {
+            throw new IllegalArgumentException("maxCheckpointsPerThread must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.maxCheckpointsPerThread = maxCheckpointsPerThread;
+    }
+
+    @Override
+    public synchronized Collection<Checkpoint> list(RunnableConfig config) {
+        purgeExpired();
+        ThreadCheckpoints entry = touch(threadId(config));
+        return entry == null ? List.of() : List.copyOf(entry.checkpoints);
+    }
+
+    @Override
+    public synchronized Optional<Checkpoint> get(RunnableConfig config) {
+        purgeExpired();
+        ThreadCheckpoints entry = touch(threadId(config));
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (config.checkPointId().isPresent()) {
+            String checkPointId = config.checkPointId().get();
+            return entry.checkpoints.stream()
+                    .filter(checkpoint -> checkpoint.getId().equals(checkPointId))
+                    .findFirst();
+        }
+        return getLast(entry.checkpoints, config);
+    }
+
+    @Override
+    public synchronized RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) {
+        purgeExpired();
+        String threadId = threadId(config);
+        ThreadCheckpoints entry = touch(threadId);
+        if (entry == null) {
+            entry = new ThreadCheckpoints();
+            checkpointsByThread.put(threadId, entry);
+            evictOverflow();
+        }
+
+        if (config.checkPointId().isPresent()) {
+            String checkPointId = config.checkPointId().get();
+            for (int i = 0; i < entry.checkpoints.size(); i++) {
+                if (entry.checkpoints.get(i).getId().equals(checkPointId)) {
+                    entry.checkpoints.set(i, checkpoint);
+                    return config;
+                }
+            }
+            throw new NoSuchElementException(String.format("Checkpoint with id %s not found!", checkPointId));
+        }
+
+        entry.checkpoints.push(checkpoint);
+        while (entry.checkpoints.size() > maxCheckpointsPerThread) {
+            entry.checkpoints.removeLast();
+        }
+        return RunnableConfig.builder(config).checkPointId(checkpoint.getId()).build();
+    }
+
+    @Override
+    public synchronized boolean clear(RunnableConfig config) {
+        return checkpointsByThread.remove(threadId(config)) != null;
+    }
+
+    @Override
+    public synchronized Tag release(RunnableConfig config) {
+        String threadId = threadId(config);
+        ThreadCheckpoints entry = checkpointsByThread.remove(threadId);
+        return new Tag(threadId, entry == null ? List.of() : entry.checkpoints);
+    }
+
+    /**
+     * 当前保留的线程数
+     */
+    public synchronized int size() {
+        return checkpointsByThread.size();
+    }
+
+    /**
+     * 累计因容量或TTL被淘汰的线程数
+     */
+    public synchronized long evictedCount() {
+        return evictedCount;
+    }
+
+    private ThreadCheckpoints touch(String threadId) {
+        ThreadCheckpoints entry = checkpointsByThread.get(threadId);
+        if (entry != null) {
+            entry.lastAccessMillis = System.currentTimeMillis();
+        }
+        return entry;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, ThreadCheckpoints>> it = checkpointsByThread.entrySet().iterator();
+        while (checkpointsByThread.size() > maxEntries && it.hasNext()) {
+            String threadId = it.next().getKey();
+            it.remove();
+            evictedCount++;
+            log.debug("checkpoint 超过容量上限， 淘汰线程: {}", threadId);
+        }
+    }
+
+    private void purgeExpired() {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() - ttlMillis;
+        Iterator<Map.Entry<String, ThreadCheckpoints>> it = checkpointsByThread.entrySet().iterator();
+        // 访问顺序链表， 遇到第一个未过期的线程即可停止
+        while (it.hasNext()) {
+            Map.Entry<String, ThreadCheckpoints> eldest = it.next();
+            if (eldest.getValue().lastAccessMillis > deadline) {
+                break;
+            }
+            it.remove();
+            evictedCount++;
+            log.debug("checkpoint 已过期， 淘汰线程: {}", eldest.getKey());
+        }
+    }
+
+    private static String threadId(RunnableConfig config) {
+        return config.threadId().orElse(THREAD_ID_DEFAULT);
+    }
+
+    private static final class ThreadCheckpoints {
+        private final LinkedList<Checkpoint> checkpoints = new LinkedList<>();
+        private long lastAccessMillis = System.currentTimeMillis();
+    }
+}
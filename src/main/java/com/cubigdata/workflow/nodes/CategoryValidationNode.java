@@ -2,7 +2,10 @@ package com.cubigdata.workflow.nodes;
 
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.cubigdata.cache.ColumnResultStore;
+import com.cubigdata.workflow.support.DegradableNodeAction;
+import com.cubigdata.workflow.support.QueryParser;
+import com.cubigdata.workflow.support.TableResultMerger;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
@@ -20,8 +23,18 @@ public class CategoryValidationNode implements NodeAction {
 
     private final ObjectMapper objectMapper;
 
+    /**
+     * 字段级结果存储， 校验后的字段结果写回供后续复用； 为 null 表示不开启
+     */
+    private final ColumnResultStore columnStore;
+
     public CategoryValidationNode(ObjectMapper objectMapper) {
+        this(objectMapper, null);
+    }
+
+    public CategoryValidationNode(ObjectMapper objectMapper, ColumnResultStore columnStore) {
         this.objectMapper = objectMapper;
+        this.columnStore = columnStore;
     }
 
     @Override
@@ -53,7 +66,20 @@ public class CategoryValidationNode implements NodeAction {
                 jsonNode = objectMapper.valueToTree(llmResultObj);
             }
 
-            String correctedJson = validateAndCorrectClassifications(jsonNode, validClassifications);
+            Map<String, Object> dataMap = validateAndCorrectClassifications(jsonNode, validClassifications);
+
+            // 降级执行时缺少部分上下文， 结果不写回字段缓存， 并在输出中注明缺失的输入
+            Map<String, Object> missingInputs = DegradableNodeAction.degradedInputs(state.data());
+            if (columnStore != null && missingInputs.isEmpty()) {
+                rememberColumns(dataMap, state.value("query").orElse(null), categoryObj);
+            }
+
+            wrapClassificationsInList(dataMap);
+            if (!missingInputs.isEmpty()) {
+                dataMap.put("degradedInputs", missingInputs);
+            }
+
+            String correctedJson = objectMapper.writeValueAsString(dataMap);
 
             result.put("corrected_result", correctedJson);
 
@@ -95,14 +121,14 @@ public class CategoryValidationNode implements NodeAction {
         }
     }
 
-    private String validateAndCorrectClassifications(JsonNode jsonNode, List<String> validClassifications) throws JsonProcessingException {
+    private Map<String, Object> validateAndCorrectClassifications(JsonNode jsonNode, List<String> validClassifications) {
         Map<String, Object> dataMap = objectMapper.convertValue(jsonNode, Map.class);
         
         StringBuilder message = new StringBuilder();
 
         if (dataMap.containsKey("tableClassifications")) {
             String tableClass = (String) dataMap.get("tableClassifications");
-            if (!validClassifications.contains(tableClass)) {
+            if (correctable(tableClass, dataMap.get("modelReliability")) && !validClassifications.contains(tableClass)) {
                 String correctedClass = findMostSimilar(tableClass, validClassifications);
                 dataMap.put("tableClassifications", correctedClass);
                 message.append("表分类已修正: ").append(tableClass).append(" -> ").append(correctedClass).append("; ");
@@ -114,7 +140,8 @@ public class CategoryValidationNode implements NodeAction {
             for (Map<String, Object> columnInfo : columnInfoList) {
                 if (columnInfo.containsKey("columnClassifications")) {
                     String columnClass = (String) columnInfo.get("columnClassifications");
-                    if (!validClassifications.contains(columnClass)) {
+                    if (correctable(columnClass, columnInfo.get("modelReliability"))
+                            && !validClassifications.contains(columnClass)) {
                         String correctedClass = findMostSimilar(columnClass, validClassifications);
                         columnInfo.put("columnClassifications", correctedClass);
                         message.append("字段分类已修正: ").append(columnClass).append(" -> ").append(correctedClass).append("; ");
@@ -123,9 +150,39 @@ public class CategoryValidationNode implements NodeAction {
             }
         }
 
-        wrapClassificationsInList(dataMap);
-        
-        return objectMapper.writeValueAsString(dataMap);
+        return dataMap;
+    }
+
+    /**
+     * 空类别或置信度为 0 的结论（兜底结果中需人工确认的字段）不做修正， 否则会被就近匹配成第一个目标类别
+     */
+    private static boolean correctable(String classification, Object reliability) {
+        if (classification == null || classification.isBlank()) {
+            return false;
+        }
+        return reliability == null || TableResultMerger.parseReliability(reliability) > 0;
+    }
+
+    /**
+     * 以输入中的字段名与注释为键， 写回校验后的字段结果
+     */
+    private void rememberColumns(Map<String, Object> dataMap, Object query, Object categoryObj) {
+        List<String> categories = QueryParser.parseCategories(objectMapper, categoryObj);
+        Map<String, Object> commentByName = new HashMap<>();
+        for (Map<String, Object> column : QueryParser.columns(QueryParser.parseTable(objectMapper, query))) {
+            commentByName.put(String.valueOf(column.get("columnName")), column.get("columnComment"));
+        }
+        int stored = 0;
+        for (Map<String, Object> column : QueryParser.columns(dataMap)) {
+            String columnName = String.valueOf(column.get("columnName"));
+            if (!commentByName.containsKey(columnName)) {
+                continue;
+            }
+            if (columnStore.put(columnStore.key(columnName, commentByName.get(columnName), categories), column)) {
+                stored++;
+            }
+        }
+        log.info("字段级结果写回 {} 条", stored);
     }
 
     // todo: 简单的相似度匹配 - 可以后续优化为向量相似度 (考虑相似度匹配接口， 新增字段级别的相似度结果)
@@ -162,7 +219,7 @@ public class CategoryValidationNode implements NodeAction {
         if (dataMap.containsKey("tableClassifications")) {
             Object tableClass = dataMap.get("tableClassifications");
             if (!(tableClass instanceof List)) {
-                dataMap.put("tableClassifications", Arrays.asList(tableClass));
+                dataMap.put("tableClassifications", isBlank(tableClass) ? List.of() : Arrays.asList(tableClass));
             }
         }
         
@@ -172,10 +229,14 @@ public class CategoryValidationNode implements NodeAction {
                 if (columnInfo.containsKey("columnClassifications")) {
                     Object columnClass = columnInfo.get("columnClassifications");
                     if (!(columnClass instanceof List)) {
-                        columnInfo.put("columnClassifications", Arrays.asList(columnClass));
+                        columnInfo.put("columnClassifications", isBlank(columnClass) ? List.of() : Arrays.asList(columnClass));
                     }
                 }
             }
         }
     }
+
+    private static boolean isBlank(Object classification) {
+        return classification == null || classification.toString().isBlank();
+    }
 }
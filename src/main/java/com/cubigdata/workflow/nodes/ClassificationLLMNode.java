@@ -1,20 +1,51 @@
 package com.cubigdata.workflow.nodes;
 
 import com.alibaba.cloud.ai.graph.OverAllState;
-import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeAction;
+import com.cubigdata.cache.ColumnResultStore;
+import com.cubigdata.workflow.rules.RuleBasedClassifier;
+import com.cubigdata.workflow.support.ChunkingOptions;
+import com.cubigdata.workflow.support.ColumnStreamRegistry;
+import com.cubigdata.workflow.support.CompactOutputCodec;
+import com.cubigdata.workflow.support.DegradableNodeAction;
+import com.cubigdata.workflow.support.JsonRepair;
+import com.cubigdata.workflow.support.PromptEncoder;
+import com.cubigdata.workflow.support.QueryParser;
+import com.cubigdata.workflow.support.StreamingColumnParser;
+import com.cubigdata.workflow.support.TableResultMerger;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
-import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.ai.vectorstore.VectorStore;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+/**
+ * 分类分级打标节点
+ * <p>
+ * 大模型调用全部走 ChatClient 的响应式接口（stream）， 等待模型输出期间不占用任何线程；
+ * 规则预分类、Prompt 编码与输出解析等 CPU 工作在订阅线程上直接完成。
+ * 全部字段命中规则或字段级缓存时， 仍以只含表级判定的精简 Prompt 调用大模型确定表分类，
+ * 调用失败时退回 {@link TableResultMerger} 由字段结果合成的表级结论。
+ * @author yHong
+ * @version 1.0
+ * @since 2025/9/23 17:40
+ */
 @Slf4j
-public class ClassificationLLMNode implements NodeAction {
+public class ClassificationLLMNode implements AsyncNodeAction {
 
     private final ChatClient chatClient;
     private final ObjectMapper mapper = new ObjectMapper();
@@ -25,7 +56,47 @@ public class ClassificationLLMNode implements NodeAction {
     private final String simMatchKey;
     private final String outputKey;
 
-    private final String promptTemplate;
+    /**
+     * 每张表变化的用户 Prompt 模板； 固定的规则、白名单与输出结构全部在系统 Prompt 中， 作为稳定前缀便于模型服务端前缀缓存
+     */
+    private final String userPromptTemplate;
+
+    /**
+     * 字段级结果存储， 为 null 表示不开启字段复用
+     */
+    private final ColumnResultStore columnStore;
+
+    /**
+     * 本地合成结果时使用的模型标识
+     */
+    private final String modelKey;
+
+    /**
+     * 宽表分片配置
+     */
+    private final ChunkingOptions chunking;
+
+    /**
+     * 是否以流式方式调用大模型并逐字段推送
+     */
+    private final boolean streaming;
+
+    private final ColumnStreamRegistry streamRegistry;
+
+    /**
+     * 表信息与上下文写入 Prompt 时的编码
+     */
+    private final PromptEncoder encoder;
+
+    /**
+     * 紧凑输出模式的编解码， 为 null 表示使用完整输出结构
+     */
+    private final CompactOutputCodec compactOutput;
+
+    /**
+     * 规则预分类， 知识库热加载后重建； 为 null 或返回 null 表示不开启
+     */
+    private final Supplier<RuleBasedClassifier> ruleClassifier;
 
     public ClassificationLLMNode(ChatClient.Builder modelBuilder,
                                  VectorStore classificationVectorStore,
@@ -34,9 +105,18 @@ public class ClassificationLLMNode implements NodeAction {
                                  String docsKey,
                                  String simMatchKey,
                                  String outputKey,
-                                 String promptTemplate) {
+                                 String systemPrompt,
+                                 String userPromptTemplate,
+                                 ColumnResultStore columnStore,
+                                 String modelKey,
+                                 ChunkingOptions chunking,
+                                 boolean streaming,
+                                 ColumnStreamRegistry streamRegistry,
+                                 PromptEncoder encoder,
+                                 CompactOutputCodec compactOutput,
+                                 Supplier<RuleBasedClassifier> ruleClassifier) {
         this.chatClient = modelBuilder
-                .defaultSystem(promptTemplate)
+                .defaultSystem(systemPrompt)
                 .defaultAdvisors(
 //                        RetrievalAugmentationAdvisor.builder()
 //                                .documentRetriever(VectorStoreDocumentRetriever.builder()
@@ -52,56 +132,426 @@ public class ClassificationLLMNode implements NodeAction {
         this.docsKey = docsKey;
         this.simMatchKey = simMatchKey;
         this.outputKey = outputKey;
-        this.promptTemplate = promptTemplate;
+        this.userPromptTemplate = userPromptTemplate;
+        this.columnStore = columnStore;
+        this.modelKey = modelKey;
+        this.chunking = chunking == null ? ChunkingOptions.disabled() : chunking;
+        // 紧凑输出没有 columnInfoList， 无法逐字段推送
+        this.streaming = streaming && compactOutput == null;
+        this.streamRegistry = streamRegistry == null ? new ColumnStreamRegistry() : streamRegistry;
+        this.encoder = encoder == null ? new PromptEncoder(mapper, false, Integer.MAX_VALUE) : encoder;
+        this.compactOutput = compactOutput;
+        this.ruleClassifier = ruleClassifier == null ? () -> null : ruleClassifier;
     }
 
     @Override
-    public Map<String, Object> apply(OverAllState state) throws Exception {
+    public CompletableFuture<Map<String, Object>> apply(OverAllState state) {
+        return Mono.defer(() -> {
+            try {
+                return classify(state);
+            } catch (Exception e) {
+                return Mono.error(e);
+            }
+        }).toFuture();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<Map<String, Object>> classify(OverAllState state) throws Exception {
         log.info("开始进行分类分级打标...");
-        String query = mapper.writeValueAsString(state.value(queryKey).orElse(""));
-        String category = mapper.writeValueAsString(state.value(categoryKey).orElse(""));
-        String retrievedDocs = mapper.writeValueAsString(state.value(docsKey).orElse(""));
-        String simMatch = mapper.writeValueAsString(state.value(simMatchKey).orElse(""));
+        Object queryObj = state.value(queryKey).orElse("");
+        Object categoryObj = state.value(categoryKey).orElse("");
+        Consumer<Map<String, Object>> listener = streamRegistry.listener(state.value("stream_id").orElse(null));
+
+        // 结构化校验失败后的定向补全： 只针对缺失或无效的字段重新打标
+        List<String> repairColumns = state.value("repair_columns")
+                .filter(List.class::isInstance)
+                .map(v -> ((List<?>) v).stream().map(String::valueOf).toList())
+                .orElse(List.of());
+        Object previous = state.value(outputKey).orElse(null);
+        if (!repairColumns.isEmpty() && previous instanceof Map<?, ?> previousResult) {
+            return repair(queryObj, categoryObj, (Map<String, Object>) previousResult, repairColumns);
+        }
 
-        // 替换占位符
-        String finalPrompt = promptTemplate
-                .replace("{{#1752826684738.query#}}", query)
-                .replace("{{#1752826684738.category#}}", category)
-                .replace("{{#context#}}", retrievedDocs + "\n" + simMatch);
+        RuleBasedClassifier rules = ruleClassifier.get();
+        Map<String, Object> table = columnStore != null || chunking.enabled() || compactOutput != null || rules != null
+                ? QueryParser.parseTable(mapper, queryObj) : null;
+        List<Map<String, Object>> columns = QueryParser.columns(table);
+        List<String> categories = QueryParser.parseCategories(mapper, categoryObj);
+
+        // 规则预分类与字段级复用： 命中的字段直接使用规则或历史结果， 只把未命中的字段交给大模型
+        Map<Integer, Map<String, Object>> cachedColumns = new LinkedHashMap<>();
+        List<Map<String, Object>> pendingColumns = new ArrayList<>();
+        int ruleMatched = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            Map<String, Object> column = columns.get(i);
+            RuleBasedClassifier.Match match = rules == null ? null : rules.classify(column, categories);
+            if (match != null) {
+                ruleMatched++;
+            }
+            Map<String, Object> cached = match != null ? match.toColumnResult(modelKey)
+                    : columnStore == null ? null : columnStore.get(
+                    columnStore.key(column.get("columnName"), column.get("columnComment"), categories));
+            if (cached != null) {
+                Map<String, Object> merged = new LinkedHashMap<>(column);
+                merged.putAll(cached);
+                cachedColumns.put(i, merged);
+                listener.accept(merged);
+            } else {
+                pendingColumns.add(column);
+            }
+        }
+
+        Map<String, Object> updated = new HashMap<>();
+        updated.put("repair_columns", List.of());
+        if (ruleMatched > 0) {
+            log.info("规则预分类命中 {}/{} 个字段", ruleMatched, columns.size());
+        }
+
+        Map<String, Object> missingInputs = DegradableNodeAction.degradedInputs(state.data());
+        String retrievedDocs = missingInputs.containsKey(docsKey) ? "（知识库参考资料暂不可用）"
+                : encoder.documents(state.value(docsKey).orElse(""));
+        String simMatch = missingInputs.containsKey(simMatchKey) ? "（历史相似打标依据暂不可用）"
+                : encoder.similarity(state.value(simMatchKey).orElse(""));
+
+        if (!cachedColumns.isEmpty() && pendingColumns.isEmpty()) {
+            log.info("全部 {} 个字段命中规则预分类或字段级缓存， 仅请求大模型做表级判定", columns.size());
+            Map<String, Object> merged = TableResultMerger.merge(table, new ArrayList<>(cachedColumns.values()), modelKey);
+            return classifyTable(table, merged, categories, encoder.categories(categoryObj), retrievedDocs, simMatch)
+                    .map(result -> {
+                        updated.put(outputKey, result);
+                        return updated;
+                    });
+        }
+
+        String category = compactOutput != null ? compactOutput.categoryList(categories) : encoder.categories(categoryObj);
+
+        if (chunking.shouldChunk(pendingColumns.size())) {
+            return classifyChunks(table, columns, pendingColumns, categories, category, retrievedDocs, simMatch, listener)
+                    .map(classified -> {
+                        List<Map<String, Object>> merged = mergeColumns(columns, cachedColumns, classified);
+                        updated.put(outputKey, TableResultMerger.merge(table, merged, modelKey));
+                        log.info("宽表分片打标完成！ 字段数: {}", merged.size());
+                        return updated;
+                    });
+        }
+
+        Object promptQuery = queryObj;
+        String knownColumns = "";
+        if (!cachedColumns.isEmpty()) {
+            log.info("规则预分类与字段级缓存命中 {}/{}， 仅 {} 个字段交给大模型", cachedColumns.size(), columns.size(), pendingColumns.size());
+            Map<String, Object> reduced = new LinkedHashMap<>(table);
+            reduced.put("columnInfoList", pendingColumns);
+            promptQuery = reduced;
+            knownColumns = describeKnownColumns(cachedColumns.values());
+        }
+
+        List<Map<String, Object>> promptColumns = cachedColumns.isEmpty() ? columns : pendingColumns;
+        return callModel(encoder.table(promptQuery), category, retrievedDocs, simMatch + knownColumns, listener)
+                .map(output -> {
+                    Map<String, Object> result = expand(output, table, promptColumns, categories);
+                    if (!cachedColumns.isEmpty()) {
+                        result.put("columnInfoList", mergeColumns(columns, cachedColumns, result.get("columnInfoList")));
+                    }
+                    updated.put(outputKey, result);
+                    log.info("分类分级打标完成！");
+                    return updated;
+                });
+    }
+
+    private Mono<Map<String, Object>> callModel(String query, String category, String retrievedDocs, String simMatch,
+                                                Consumer<Map<String, Object>> listener) {
+        // 替换占位符， 按变化频率从低到高排列， 表信息放在最后
+        String finalPrompt = userPromptTemplate
+                .replace("{{#category#}}", category)
+                .replace("{{#context#}}", retrievedDocs)
+                .replace("{{#simMatch#}}", simMatch)
+                .replace("{{#query#}}", query);
 
         log.info("dbInfo:{}", query);
         log.info("categary:{}", category);
         log.info("retrievedDocs:{}", retrievedDocs);
         log.info("simMatch:{}", simMatch);
 
-        ChatResponse response = chatClient.prompt(finalPrompt)
+        Mono<String> raw = streaming ? streamModel(finalPrompt, listener) : complete(chatClient.prompt(finalPrompt));
+        return raw.map(this::parseModelOutput);
+    }
+
+    /**
+     * 以响应式接口调用大模型并拼接完整输出； 超时或取消时随订阅一起取消上游请求
+     */
+    private Mono<String> complete(ChatClient.ChatClientRequestSpec request) {
+        return request
                 .options(ChatOptions.builder()
                         .temperature(0.5)
                         .build())
-                .call()
-                .chatResponse();
+                .stream()
+                .content()
+                .collect(Collectors.joining());
+    }
 
-        String raw = response.getResult().getOutput().getText();
+    /**
+     * 流式调用大模型， 增量解析 columnInfoList， 每完成一个字段即推送； 输出异常时提前终止
+     */
+    @SuppressWarnings("unchecked")
+    private Mono<String> streamModel(String finalPrompt, Consumer<Map<String, Object>> listener) {
+        return Mono.defer(() -> {
+            StreamingColumnParser parser = new StreamingColumnParser();
+            long startNanos = System.nanoTime();
+            return chatClient.prompt(finalPrompt)
+                    .options(ChatOptions.builder()
+                            .temperature(0.5)
+                            .build())
+                    .stream()
+                    .content()
+                    // 发出错误即取消上游， 不再消耗输出 token
+                    .<String>handle((token, sink) -> {
+                        for (String columnJson : parser.feed(token)) {
+                            Map<String, Object> column;
+                            try {
+                                column = mapper.readValue(columnJson, Map.class);
+                            } catch (Exception e) {
+                                column = null;
+                            }
+                            if (column == null || !column.containsKey("columnName")) {
+                                sink.error(new RuntimeException("LLM 流式输出字段结构异常: " + columnJson));
+                                return;
+                            }
+                            if (parser.emitted() == 1) {
+                                log.info("首个字段结果耗时 {} ms", (System.nanoTime() - startNanos) / 1_000_000);
+                            }
+                            listener.accept(column);
+                        }
+                        if (parser.looksMalformed(2000)) {
+                            sink.error(new RuntimeException("LLM 流式输出中未出现 JSON 内容: " + parser.text()));
+                        }
+                    })
+                    .then(Mono.fromSupplier(() -> {
+                        log.info("流式打标完成， 共解析 {} 个字段， 耗时 {} ms", parser.emitted(),
+                                (System.nanoTime() - startNanos) / 1_000_000);
+                        return parser.text();
+                    }));
+        });
+    }
 
+    private Map<String, Object> parseModelOutput(String raw) {
         String json = extractJsonPayload(raw);
 
         if (json == null) {
-            throw new RuntimeException("LLM 输出中未找到 JSON 内容: " + raw);
+            // 输出被截断时回退到最后一个完整值， 缺失的字段由结构化校验走定向补全
+            json = JsonRepair.repairTruncated(raw);
+            if (json == null) {
+                throw new RuntimeException("LLM 输出中未找到 JSON 内容: " + raw);
+            }
+            log.warn("LLM 输出不完整， 已在本地截断修复");
         }
 
-        Map<String, Object> result;
         try {
-            result = mapper.readValue(json, Map.class);
+            return mapper.readValue(json, Map.class);
         } catch (Exception e) {
             throw new RuntimeException("LLM 输出不是合法 JSON: " + json, e);
         }
+    }
+
+    /**
+     * 定向补全： 使用精简的追问 Prompt 只请求缺失或无效的字段， 并合并回上一次结果
+     */
+    @SuppressWarnings("unchecked")
+    private Mono<Map<String, Object>> repair(Object queryObj, Object categoryObj,
+                                             Map<String, Object> previousResult, List<String> repairColumns) throws Exception {
+        Map<String, Object> table = QueryParser.parseTable(mapper, queryObj);
+        List<Map<String, Object>> columns = QueryParser.columns(table);
+        List<Map<String, Object>> targets = columns.stream()
+                .filter(column -> repairColumns.contains(String.valueOf(column.get("columnName"))))
+                .toList();
+        log.info("开始定向补全字段: {}", repairColumns);
+
+        List<String> categories = QueryParser.parseCategories(mapper, categoryObj);
+        String outputFormat = compactOutput != null
+                ? "按系统提示中的紧凑格式返回 {\"c\": [...]}（字段序号为以下字段的顺序，从 1 开始），不要输出 t，"
+                : "返回 JSON 对象 {\"columnInfoList\": [...]}，不要输出表级字段，";
+        String repairPrompt = "上一次输出中以下字段缺失或不完整。请仅针对这些字段，按系统提示中的规则与字段输出结构，"
+                + outputFormat + "不要使用 Markdown 代码块：\n"
+                + mapper.writeValueAsString(targets.isEmpty() ? repairColumns : targets)
+                + "\n目标类别列表：" + (compactOutput != null ? compactOutput.categoryList(categories) : encoder.categories(categoryObj));
+
+        return complete(chatClient.prompt().user(repairPrompt))
+                .map(raw -> mergeRepaired(previousResult, columns,
+                        expand(parseModelOutput(raw), null, targets, categories)));
+    }
+
+    /**
+     * 以字段名为键合并， 补全结果覆盖上一次结果
+     */
+    private Map<String, Object> mergeRepaired(Map<String, Object> previousResult, List<Map<String, Object>> columns,
+                                              Map<String, Object> repaired) {
+        Map<String, Map<String, Object>> byName = new LinkedHashMap<>();
+        for (Map<String, Object> column : QueryParser.columns(previousResult)) {
+            byName.put(String.valueOf(column.get("columnName")), column);
+        }
+        for (Map<String, Object> column : QueryParser.columns(repaired)) {
+            byName.put(String.valueOf(column.get("columnName")), column);
+        }
+        List<Map<String, Object>> mergedColumns = new ArrayList<>();
+        for (Map<String, Object> column : columns) {
+            Map<String, Object> merged = byName.remove(String.valueOf(column.get("columnName")));
+            if (merged != null) {
+                mergedColumns.add(merged);
+            }
+        }
+        mergedColumns.addAll(byName.values());
+
+        Map<String, Object> result = new LinkedHashMap<>(previousResult);
+        result.put("columnInfoList", mergedColumns);
 
         Map<String, Object> updated = new HashMap<>();
         updated.put(outputKey, result);
-        log.info("分类分级打标完成！");
+        updated.put("repair_columns", List.of());
+        log.info("定向补全完成！");
         return updated;
     }
 
+    /**
+     * 表级判定： 字段结论全部已知时只请求表分类、级别与理由， 输出远短于整表打标；
+     * 表级别不低于字段最高级， 类别不在目标类别列表中或调用失败时保留合成结论
+     */
+    private Mono<Map<String, Object>> classifyTable(Map<String, Object> table, Map<String, Object> merged,
+                                                    List<String> categories, String category,
+                                                    String retrievedDocs, String simMatch) {
+        String tablePrompt = "本表全部字段已有确定结果，请仅按系统提示中的规则给出表级判定，返回 JSON 对象 "
+                + "{\"tableClassifications\": \"类别\", \"tableLevel\": \"级别数字\", \"tableReasoning\": \"理由\", \"modelReliability\": 置信度}，"
+                + "不要输出 columnInfoList，不要使用 Markdown 代码块。\n"
+                + "表名：" + table.getOrDefault("tbName", "") + "（" + table.getOrDefault("tbComment", "") + "）"
+                + describeKnownColumns(QueryParser.columns(merged))
+                + "目标类别列表：" + category
+                + "\n知识库参考资料：\n" + retrievedDocs
+                + "\n历史相似打标依据：\n" + simMatch;
+        return complete(chatClient.prompt().user(tablePrompt))
+                .map(raw -> {
+                    Map<String, Object> output = parseModelOutput(raw);
+                    Map<String, Object> result = new LinkedHashMap<>(merged);
+                    Object classifications = output.get("tableClassifications");
+                    String tableClass = classifications instanceof List<?> list
+                            ? (list.isEmpty() ? null : String.valueOf(list.get(0)))
+                            : classifications == null ? null : classifications.toString().strip();
+                    if (tableClass == null || tableClass.isEmpty()
+                            || (!categories.isEmpty() && !categories.contains(tableClass))) {
+                        log.warn("表级判定类别无效: {}， 保留字段合成结论", classifications);
+                        return merged;
+                    }
+                    int level = Math.max(TableResultMerger.parseLevel(output.get("tableLevel")),
+                            TableResultMerger.parseLevel(merged.get("tableLevel")));
+                    result.put("tableClassifications", tableClass);
+                    result.put("tableLevel", String.valueOf(level));
+                    if (output.get("tableReasoning") != null) {
+                        result.put("tableReasoning", output.get("tableReasoning"));
+                    }
+                    if (TableResultMerger.parseReliability(output.get("modelReliability")) > 0) {
+                        result.put("modelReliability", TableResultMerger.parseReliability(output.get("modelReliability")));
+                    }
+                    log.info("表级判定完成: {} / {}级", tableClass, level);
+                    return result;
+                })
+                .onErrorResume(e -> {
+                    log.warn("表级判定调用失败， 使用字段合成结论: {}", e.getMessage());
+                    return Mono.just(merged);
+                });
+    }
+
+    /**
+     * 宽表分片： 按 chunkSize 切分待打标字段并发调用大模型， 表级结论由 TableResultMerger 在代码中合成
+     */
+    @SuppressWarnings("unchecked")
+    private Mono<List<Map<String, Object>>> classifyChunks(Map<String, Object> table,
+                                                     List<Map<String, Object>> allColumns,
+                                                     List<Map<String, Object>> pendingColumns,
+                                                     List<String> categories,
+                                                     String category, String retrievedDocs, String simMatch,
+                                                     Consumer<Map<String, Object>> listener) {
+        List<List<Map<String, Object>>> chunks = new ArrayList<>();
+        for (int from = 0; from < pendingColumns.size(); from += chunking.chunkSize()) {
+            chunks.add(pendingColumns.subList(from, Math.min(from + chunking.chunkSize(), pendingColumns.size())));
+        }
+        log.info("宽表分片打标: 待打标字段 {} 个， 分为 {} 片， 并发 {}", pendingColumns.size(), chunks.size(), chunking.parallelism());
+        // 每片都带上全表字段清单， 保证各片宏类别判定一致
+        String tableOutline = describeTableOutline(allColumns);
+
+        return Flux.fromIterable(chunks)
+                .flatMapSequential(chunk -> Mono.fromCallable(() -> {
+                                    Map<String, Object> reduced = new LinkedHashMap<>(table);
+                                    reduced.put("columnInfoList", chunk);
+                                    return encoder.table(reduced);
+                                })
+                                .flatMap(chunkQuery -> callModel(chunkQuery, category, retrievedDocs, simMatch + tableOutline, listener))
+                                .map(chunkResult -> expand(chunkResult, table, chunk, categories))
+                                .map(chunkResult -> chunkResult.get("columnInfoList") instanceof List<?> list
+                                        ? (List<Map<String, Object>>) list : List.<Map<String, Object>>of()),
+                        Math.max(1, chunking.parallelism()))
+                .collectList()
+                .map(results -> {
+                    List<Map<String, Object>> classified = new ArrayList<>();
+                    results.forEach(classified::addAll);
+                    return classified;
+                });
+    }
+
+    /**
+     * 紧凑输出展开为完整输出结构
+     */
+    private Map<String, Object> expand(Map<String, Object> output, Map<String, Object> table,
+                                       List<Map<String, Object>> columns, List<String> categories) {
+        return compactOutput == null ? output : compactOutput.expand(output, table, columns, categories);
+    }
+
+    private String describeTableOutline(List<Map<String, Object>> columns) {
+        StringBuilder sb = new StringBuilder("\n本表全部字段（仅输出本次给定字段，其余仅供宏类别判定参考）：");
+        for (Map<String, Object> column : columns) {
+            sb.append(column.get("columnName")).append('(').append(column.getOrDefault("columnComment", "")).append(")、");
+        }
+        return sb.append('\n').toString();
+    }
+
+    /**
+     * 已确定字段作为上下文提供给大模型， 便于表级判定仍基于全表字段
+     */
+    private String describeKnownColumns(Iterable<Map<String, Object>> cachedColumns) {
+        StringBuilder sb = new StringBuilder("\n以下字段已有确定结果（无需输出，仅供表级判定参考）：\n");
+        for (Map<String, Object> column : cachedColumns) {
+            sb.append(column.get("columnName")).append('(').append(column.getOrDefault("columnComment", "")).append(")→")
+                    .append(column.get("columnClassifications")).append('/').append(column.get("columnLevel")).append("级\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 按输入字段顺序合并缓存结果与大模型结果
+     */
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> mergeColumns(List<Map<String, Object>> columns,
+                                                   Map<Integer, Map<String, Object>> cachedColumns,
+                                                   Object llmColumns) {
+        Map<String, Map<String, Object>> llmByName = new HashMap<>();
+        if (llmColumns instanceof List<?> list) {
+            for (Object item : list) {
+                if (item instanceof Map<?, ?> column) {
+                    llmByName.put(String.valueOf(column.get("columnName")).toLowerCase(Locale.ROOT), (Map<String, Object>) column);
+                }
+            }
+        }
+        List<Map<String, Object>> merged = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            Map<String, Object> cached = cachedColumns.get(i);
+            if (cached != null) {
+                merged.add(cached);
+                continue;
+            }
+            Map<String, Object> llmColumn = llmByName.get(String.valueOf(columns.get(i).get("columnName")).toLowerCase(Locale.ROOT));
+            if (llmColumn != null) {
+                merged.add(llmColumn);
+            }
+        }
+        return merged;
+    }
+
     private String extractJsonPayload(String text) {
         if (text == null) return null;
         String s = text.trim();
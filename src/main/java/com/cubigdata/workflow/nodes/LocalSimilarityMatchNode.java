@@ -0,0 +1,111 @@
+package com.cubigdata.workflow.nodes;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.cubigdata.workflow.similarity.HistoricalLabel;
+import com.cubigdata.workflow.similarity.HistoricalLabelIndex;
+import com.cubigdata.workflow.support.QueryParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 进程内历史相似度匹配节点
+ * <p>
+ * 基于 {@link HistoricalLabelIndex} 检索历史相似字段与表， 输出结构与外部 Python 相似度匹配服务保持一致，
+ * 分类节点的 Prompt 无需改动。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 21:50
+ */
+@Slf4j
+public class LocalSimilarityMatchNode implements NodeAction {
+
+    private final HistoricalLabelIndex index;
+    private final ObjectMapper objectMapper;
+    private final double threshold;
+    private final int topN;
+
+    public LocalSimilarityMatchNode(HistoricalLabelIndex index, ObjectMapper objectMapper, double threshold, int topN) {
+        this.index = index;
+        this.objectMapper = objectMapper;
+        this.threshold = threshold;
+        this.topN = topN;
+    }
+
+    @Override
+    public Map<String, Object> apply(OverAllState state) {
+        log.info("开始进行相似度匹配搜索(本地索引)...");
+        Map<String, Object> table = QueryParser.parseTable(objectMapper, state.value("query").orElse(null));
+        List<Map<String, Object>> columns = QueryParser.columns(table);
+
+        List<String> columnTexts = new ArrayList<>(columns.size());
+        for (Map<String, Object> column : columns) {
+            columnTexts.add(text(column.get("columnComment"), column.get("columnName")));
+        }
+        List<List<HistoricalLabelIndex.Match>> columnMatches = index.search(HistoricalLabel.COLUMN, columnTexts, threshold, topN);
+
+        List<Map<String, Object>> columnInfo = new ArrayList<>(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("字段名", String.valueOf(columns.get(i).getOrDefault("columnName", "")));
+            item.put("描述", columnTexts.get(i));
+            item.put("历史相似字段", toMatches(columnMatches.get(i)));
+            item.put("匹配数量", columnMatches.get(i).size());
+            columnInfo.add(item);
+        }
+
+        List<Map<String, Object>> tableInfo = new ArrayList<>();
+        if (table != null) {
+            String tableText = text(table.get("tbComment"), table.get("tbName"));
+            List<HistoricalLabelIndex.Match> tableMatches = index.search(HistoricalLabel.TABLE, List.of(tableText), threshold, topN).get(0);
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("表名", String.valueOf(table.getOrDefault("tbName", "")));
+            item.put("描述", table.get("tbComment") == null ? "" : String.valueOf(table.get("tbComment")));
+            item.put("历史相似表", toMatches(tableMatches));
+            item.put("匹配数量", tableMatches.size());
+            tableInfo.add(item);
+        }
+
+        Map<String, Object> searchParams = new LinkedHashMap<>();
+        searchParams.put("相似度阈值", threshold);
+        searchParams.put("最大返回数", topN);
+        searchParams.put("搜索方法", "Local Flat Search");
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("字段信息", columnInfo);
+        result.put("表信息", tableInfo);
+        result.put("搜索参数", searchParams);
+
+        Map<String, Object> updated = new HashMap<>();
+        updated.put("similarityMatchResult", result);
+        log.info("相似度搜索完成！");
+        return updated;
+    }
+
+    private static List<Map<String, Object>> toMatches(List<HistoricalLabelIndex.Match> matches) {
+        List<Map<String, Object>> items = new ArrayList<>(matches.size());
+        for (HistoricalLabelIndex.Match match : matches) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("字段名", match.label().name() == null ? "" : match.label().name());
+            item.put("描述", match.label().description() == null ? "" : match.label().description());
+            item.put("类别", match.label().category());
+            item.put("级别", match.label().level());
+            item.put("相似度", Math.round(match.score() * 10000) / 10000.0);
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static String text(Object comment, Object name) {
+        if (comment != null && !comment.toString().isBlank()) {
+            return comment.toString();
+        }
+        return name == null ? "" : name.toString();
+    }
+}
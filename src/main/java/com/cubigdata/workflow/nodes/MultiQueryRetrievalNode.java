@@ -0,0 +1,200 @@
+package com.cubigdata.workflow.nodes;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.cubigdata.vector.HybridRetriever;
+import com.cubigdata.workflow.support.QueryParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按字段多路检索知识库
+ * <p>
+ * 整表 JSON 作为一条查询时向量语义被几十个字段稀释， 这里改为每个字段（字段名 + 注释）与表本身各发一条查询，
+ * 并发检索后按文档 id 去重并保留最高分， 再在总条数与总字符数预算内选取： 先保证每条查询的最佳命中， 剩余名额按分数填充。
+ * 并发检索时的查询向量化由向量模型的缓存与微批合并。 表信息无法解析时退化为整条 query 检索。
+ * 配置 {@link HybridRetriever} 时每条查询走词法 + 向量混合检索， 字段名、注释与知识库字段名完全一致的文档优先。
+ * 输出格式与 KnowledgeRetrievalNode 一致。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 03:10
+ */
+@Slf4j
+public class MultiQueryRetrievalNode implements NodeAction {
+
+    private final VectorStore vectorStore;
+    private final ObjectMapper objectMapper;
+    private final String inputKey;
+    private final String outputKey;
+    private final int topKPerQuery;
+    private final double similarityThreshold;
+    private final int maxDocs;
+    private final int maxChars;
+    private final int parallelism;
+    /**
+     * 为 null 时只做向量检索
+     */
+    private final HybridRetriever hybridRetriever;
+
+    public MultiQueryRetrievalNode(VectorStore vectorStore, ObjectMapper objectMapper, String inputKey, String outputKey,
+                                   int topKPerQuery, double similarityThreshold, int maxDocs, int maxChars, int parallelism,
+                                   HybridRetriever hybridRetriever) {
+        this.vectorStore = vectorStore;
+        this.hybridRetriever = hybridRetriever;
+        this.objectMapper = objectMapper;
+        this.inputKey = inputKey;
+        this.outputKey = outputKey;
+        this.topKPerQuery = Math.max(1, topKPerQuery);
+        this.similarityThreshold = similarityThreshold;
+        this.maxDocs = Math.max(1, maxDocs);
+        this.maxChars = maxChars;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    private record Hit(Document document, double score) {
+    }
+
+    /**
+     * @param terms 用于字段名精确命中的词
+     */
+    private record Query(String text, List<String> terms) {
+    }
+
+    @Override
+    public Map<String, Object> apply(OverAllState state) {
+        long start = System.currentTimeMillis();
+        Object query = state.value(inputKey).orElse(null);
+        List<Query> queries = queries(query);
+
+        List<List<Hit>> results = Flux.fromIterable(queries)
+                .flatMapSequential(item -> Mono.fromCallable(() -> search(item))
+                        .subscribeOn(Schedulers.boundedElastic()), parallelism)
+                .collectList()
+                .block();
+
+        // 按文档 id 去重， 保留最高分
+        Map<String, Hit> merged = new HashMap<>();
+        int hitCount = 0;
+        for (List<Hit> hits : results) {
+            hitCount += hits.size();
+            for (Hit hit : hits) {
+                merged.merge(hit.document().getId(), hit, (a, b) -> a.score() >= b.score() ? a : b);
+            }
+        }
+
+        Set<String> selected = new LinkedHashSet<>();
+        int[] chars = {0};
+        // 第一轮： 每条查询的最佳命中， 按分数从高到低
+        results.stream()
+                .filter(hits -> !hits.isEmpty())
+                .map(hits -> merged.get(hits.get(0).document().getId()))
+                .sorted(Comparator.comparingDouble(Hit::score).reversed())
+                .forEach(hit -> select(hit, selected, chars));
+        // 第二轮： 剩余名额按分数填充
+        merged.values().stream()
+                .sorted(Comparator.comparingDouble(Hit::score).reversed())
+                .forEach(hit -> select(hit, selected, chars));
+
+        StringBuilder sb = new StringBuilder();
+        for (String id : selected) {
+            sb.append("Document: ").append(merged.get(id).document().getText()).append("\n");
+        }
+        log.info("知识库多路检索完成: 查询 {} 条, 命中 {}, 去重后 {}, 选取 {}（{} 字符）, 耗时 {} ms",
+                queries.size(), hitCount, merged.size(), selected.size(), chars[0], System.currentTimeMillis() - start);
+
+        Map<String, Object> updated = new HashMap<>();
+        updated.put(outputKey, sb.toString());
+        return updated;
+    }
+
+    private void select(Hit hit, Set<String> selected, int[] chars) {
+        String id = hit.document().getId();
+        if (selected.size() >= maxDocs || selected.contains(id)) {
+            return;
+        }
+        int length = hit.document().getText() == null ? 0 : hit.document().getText().length();
+        // 预算按字符数计； 首条文档即使超出也保留， 避免上下文为空
+        if (maxChars > 0 && !selected.isEmpty() && chars[0] + length > maxChars) {
+            return;
+        }
+        selected.add(id);
+        chars[0] += length;
+    }
+
+    private List<Hit> search(Query query) {
+        List<Document> documents = hybridRetriever != null
+                ? hybridRetriever.search(query.text(), query.terms(), topKPerQuery, similarityThreshold)
+                : vectorStore.similaritySearch(SearchRequest.builder()
+                        .query(query.text())
+                        .topK(topKPerQuery)
+                        .similarityThreshold(similarityThreshold)
+                        .build());
+        List<Hit> hits = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            hits.add(new Hit(document, document.getScore() == null ? 0 : document.getScore()));
+        }
+        return hits;
+    }
+
+    /**
+     * 表与每个字段各一条查询， 相同文本只查一次
+     */
+    private List<Query> queries(Object query) {
+        Map<String, Object> table = QueryParser.parseTable(objectMapper, query);
+        List<Map<String, Object>> columns = QueryParser.columns(table);
+        if (columns.isEmpty()) {
+            return query == null ? List.of() : List.of(new Query(query.toString(), List.of()));
+        }
+        Map<String, Query> queries = new LinkedHashMap<>();
+        String tableText = text(table.get("tbName"), table.get("tbComment"));
+        if (!tableText.isEmpty()) {
+            queries.put(tableText, new Query(tableText, List.of()));
+        }
+        for (Map<String, Object> column : columns) {
+            String columnText = text(column.get("columnName"), column.get("columnComment"));
+            if (!columnText.isEmpty()) {
+                queries.putIfAbsent(columnText, new Query(columnText, terms(column.get("columnName"), column.get("columnComment"))));
+            }
+        }
+        return new ArrayList<>(queries.values());
+    }
+
+    private static List<String> terms(Object... values) {
+        List<String> terms = new ArrayList<>(values.length);
+        for (Object value : values) {
+            if (value != null && !value.toString().isBlank()) {
+                terms.add(value.toString());
+            }
+        }
+        return terms;
+    }
+
+    private static String text(Object name, Object comment) {
+        StringBuilder sb = new StringBuilder();
+        if (name != null && !name.toString().isBlank()) {
+            sb.append(name.toString().strip());
+        }
+        if (comment != null && !comment.toString().isBlank()) {
+            if (!sb.isEmpty()) {
+                sb.append(' ');
+            }
+            sb.append(comment.toString().strip());
+        }
+        return sb.toString();
+    }
+}
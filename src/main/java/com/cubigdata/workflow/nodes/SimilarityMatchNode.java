@@ -1,29 +1,51 @@
 package com.cubigdata.workflow.nodes;
 
 import com.alibaba.cloud.ai.graph.OverAllState;
-import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeAction;
+import com.cubigdata.workflow.support.HedgingOptions;
+import com.cubigdata.workflow.support.LatencyTracker;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 
+/**
+ * 历史相似度匹配节点
+ * <p>
+ * 直接返回 WebClient 的异步结果， 等待匹配服务响应期间不占用线程。
+ * 开启对冲时， 主请求超过近期分位延迟仍未返回则再发一次， 取先返回者并取消另一个。
+ * 主请求被取消时也记录已耗时（真实延迟的下界）， 否则慢请求的样本全部丢失， 分位延迟逐渐偏低、对冲越来越激进；
+ * 对冲请求被取消时耗时很短且不代表服务延迟， 不记录。
+ */
 @Slf4j
-public class SimilarityMatchNode implements NodeAction {
+public class SimilarityMatchNode implements AsyncNodeAction {
 
     private final WebClient webClient;
     private final String url;
 
+    private final HedgingOptions hedging;
+
+    private final LatencyTracker latencyTracker;
+
     public SimilarityMatchNode(WebClient webClient, String url) {
+        this(webClient, url, HedgingOptions.disabled(), new LatencyTracker(200));
+    }
+
+    public SimilarityMatchNode(WebClient webClient, String url, HedgingOptions hedging, LatencyTracker latencyTracker) {
         this.webClient = webClient;
         this.url = url;
+        this.hedging = hedging;
+        this.latencyTracker = latencyTracker;
     }
 
     @Override
-    public Map<String, Object> apply(OverAllState state) throws ExecutionException, InterruptedException {
+    public CompletableFuture<Map<String, Object>> apply(OverAllState state) {
 
         log.info("开始进行相似度匹配搜索...");
         String queryStr = state.value("query").orElse("").toString();
@@ -36,17 +58,45 @@ public class SimilarityMatchNode implements NodeAction {
         Map<String, Object> requestBody = new HashMap<>();
         requestBody.put("inputs", inputs);
 
-        CompletableFuture<Map> future = webClient.post()
-                .uri(url)
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(Map.class)
+        Mono<Map> response = request(requestBody, true);
+        Duration hedgeDelay = hedging.hedgeDelay(latencyTracker);
+        if (hedgeDelay != null) {
+            response = Mono.firstWithValue(response, request(requestBody, false)
+                    .delaySubscription(hedgeDelay)
+                    .doOnSubscribe(subscription -> log.info("相似度匹配超过 {}ms 未返回， 发起对冲请求", hedgeDelay.toMillis())));
+        }
+
+        return response
+                .map(result -> {
+                    Map<String, Object> updated = new HashMap<>();
+                    updated.put("similarityMatchResult", result);
+                    log.info("相似度搜索完成！");
+                    return updated;
+                })
                 .toFuture();
+    }
+
+    /**
+     * @param recordOnCancel 被取消时是否记录已耗时
+     */
+    private Mono<Map> request(Map<String, Object> requestBody, boolean recordOnCancel) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return webClient.post()
+                    .uri(url)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(requestBody)
+                    .retrieve()
+                    .bodyToMono(Map.class)
+                    .doFinally(signal -> {
+                        if (signal == SignalType.ON_COMPLETE || (signal == SignalType.CANCEL && recordOnCancel)) {
+                            latencyTracker.record(Duration.ofNanos(System.nanoTime() - start));
+                        }
+                    });
+        });
+    }
 
-        Map<String, Object> updated = new HashMap<>();
-        updated.put("similarityMatchResult", future.get());
-        log.info("相似度搜索完成！");
-        return updated;
+    public LatencyTracker latencyTracker() {
+        return latencyTracker;
     }
 }
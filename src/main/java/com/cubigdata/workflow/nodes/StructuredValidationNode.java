@@ -2,15 +2,26 @@ package com.cubigdata.workflow.nodes;
 
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.cubigdata.workflow.support.JsonRepair;
+import com.cubigdata.workflow.support.QueryParser;
+import com.cubigdata.workflow.support.TableResultMerger;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 结构化验证节点 - 验证LLM输出的JSON结构
+ * <p>
+ * 能在本地补齐的问题（截断、缺少可推导的属性）直接修复； 否则记录需要补全的字段交给分类节点定向补全，
+ * 超过重试预算后输出兜底结果， 避免无限循环。 兜底结果标记 {@link #FALLBACK_KEY}， 不写入表级结果缓存。
  * @author yHong
  * @version 1.0
  * @since 2025/9/23 19:30
@@ -18,88 +29,246 @@ import java.util.Map;
 @Slf4j
 public class StructuredValidationNode implements NodeAction {
 
+    private static final String[] REQUIRED_TOP_LEVEL_KEYS = {
+            "columnInfoList", "tbName", "tableClassifications",
+            "tableLevel", "tableReasoning"
+    };
+
+    private static final String[] REQUIRED_COLUMN_KEYS = {
+            "columnName", "columnClassifications", "columnLevel", "columnReasoning"
+    };
+
+    /**
+     * 兜底结果标记
+     */
+    public static final String FALLBACK_KEY = "is_fallback";
+
+    private static final String FALLBACK_REASONING = "根据《中国联通数据分类分级安全管理规范（试行）》要求，本字段多次打标未获得有效结果，需人工确认。";
+
     private final ObjectMapper objectMapper;
 
+    /**
+     * 最大补全次数， 超过后输出兜底结果
+     */
+    private final int maxRetries;
+
+    private final String modelKey;
+
     public StructuredValidationNode(ObjectMapper objectMapper) {
+        this(objectMapper, 2, "gpt-oss-120b");
+    }
+
+    public StructuredValidationNode(ObjectMapper objectMapper, int maxRetries, String modelKey) {
         this.objectMapper = objectMapper;
+        this.maxRetries = maxRetries;
+        this.modelKey = modelKey;
     }
 
     @Override
     public Map<String, Object> apply(OverAllState state) throws Exception {
         Object llmResultObj = state.value("llmResult").orElse(null);
-        if (null == llmResultObj) return Map.of("is_validate", 0);
-        String query = state.value("query").orElse("").toString();
+        Object query = state.value("query").orElse("");
+        int retryCount = state.value("retry_count")
+                .map(v -> v instanceof Number n ? n.intValue() : Integer.parseInt(v.toString()))
+                .orElse(0);
         log.info("开始验证LLM输出结构: {}", llmResultObj);
 
+        Map<String, Object> table = QueryParser.parseTable(objectMapper, query);
         Map<String, Object> result = new HashMap<>();
-        
+
         try {
-            JsonNode jsonNode;
+            Map<String, Object> llmResult = toMap(llmResultObj);
+            List<String> repairColumns = new ArrayList<>();
 
-            if (llmResultObj instanceof String llmResultStr) {
-                log.info("开始验证LLM输出结构(字符串): {}", llmResultStr);
+            if (llmResult != null) {
+                repairColumns = fixLocally(llmResult, table);
+                if (repairColumns.isEmpty() && validateStructure(objectMapper.valueToTree(llmResult))) {
+                    result.put("llmResult", llmResult);
+                    result.put("is_validate", 1);
+                    log.info("结构化验证结果: isValid=true");
+                    return result;
+                }
+            }
 
-                try {
-                    jsonNode = objectMapper.readTree(llmResultStr);
-                } catch (Exception e) {
-                    log.warn("字符串不是有效JSON，尝试作为Java对象处理");
-                    jsonNode = objectMapper.valueToTree(llmResultStr);
+            if (retryCount < maxRetries) {
+                result.put("is_validate", 0);
+                result.put("retry_count", retryCount + 1);
+                if (llmResult != null) {
+                    result.put("llmResult", llmResult);
                 }
-            } else {
-                log.info("开始验证LLM输出结构(对象): {}", llmResultObj);
-                jsonNode = objectMapper.valueToTree(llmResultObj);
+                // 为空表示需要整表重跑
+                result.put("repair_columns", llmResult == null ? List.of() : repairColumns);
+                log.warn("结构化验证失败， 第 {}/{} 次补全， 待补全字段: {}", retryCount + 1, maxRetries, repairColumns);
+                return result;
             }
 
-            boolean isValid = validateStructure(jsonNode, query);
-            
-            result.put("is_validate", isValid ? 1 : 0);
-            
-            log.info("结构化验证结果: isValid={}", isValid);
-            
+            log.warn("结构化验证超过重试预算 {}， 输出兜底结果", maxRetries);
+            result.put("llmResult", fallback(llmResult, table));
+            result.put(FALLBACK_KEY, true);
+            result.put("is_validate", 1);
+            result.put("repair_columns", List.of());
         } catch (Exception e) {
             log.error("JSON解析失败", e);
-            result.put("is_validate", 0);
+            result.put("is_validate", retryCount < maxRetries ? 0 : 1);
+            result.put("retry_count", retryCount + 1);
+            if (retryCount >= maxRetries) {
+                result.put("llmResult", fallback(null, table));
+                result.put(FALLBACK_KEY, true);
+            }
         }
-        
+
         return result;
     }
 
-    // todo: 根据验证结果， 修改分类分级节点的Prompt
-    private boolean validateStructure(JsonNode jsonNode, String query) {
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toMap(Object llmResultObj) {
+        if (llmResultObj == null) {
+            return null;
+        }
+        if (llmResultObj instanceof Map<?, ?> map) {
+            return new LinkedHashMap<>((Map<String, Object>) map);
+        }
+        String text = llmResultObj.toString();
+        try {
+            JsonNode node = objectMapper.readTree(text);
+            return node.isObject() ? objectMapper.convertValue(node, LinkedHashMap.class) : null;
+        } catch (Exception e) {
+            String repaired = JsonRepair.repairTruncated(text);
+            if (repaired == null) {
+                log.warn("字符串不是有效JSON， 且无法本地修复");
+                return null;
+            }
+            try {
+                return objectMapper.readValue(repaired, LinkedHashMap.class);
+            } catch (Exception ex) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 本地补齐可推导的属性， 返回无法本地修复、需要大模型补全的字段名
+     */
+    private List<String> fixLocally(Map<String, Object> llmResult, Map<String, Object> table) {
+        List<Map<String, Object>> inputColumns = QueryParser.columns(table);
+        Map<String, Map<String, Object>> inputByName = new LinkedHashMap<>();
+        for (Map<String, Object> column : inputColumns) {
+            inputByName.put(String.valueOf(column.get("columnName")), column);
+        }
+
+        List<Map<String, Object>> columns = new ArrayList<>();
+        QueryParser.columns(llmResult).forEach(column -> columns.add(new LinkedHashMap<>(column)));
+        List<String> repairColumns = new ArrayList<>();
+        for (Map<String, Object> column : columns) {
+            String columnName = String.valueOf(column.get("columnName"));
+            Map<String, Object> input = inputByName.get(columnName);
+            if (input != null) {
+                column.putIfAbsent("columnComment", input.get("columnComment"));
+                column.putIfAbsent("id", input.get("id"));
+            }
+            column.putIfAbsent("modelKey", modelKey);
+            if (!column.containsKey("columnClassifications") || TableResultMerger.parseLevel(column.get("columnLevel")) == 0) {
+                repairColumns.add(columnName);
+                continue;
+            }
+            column.putIfAbsent("modelReliability", 60);
+            column.putIfAbsent("columnReasoning", String.format("根据《中国联通数据分类分级安全管理规范（试行）》要求，本字段判定为“%s”，%s级。",
+                    column.get("columnClassifications"), TableResultMerger.parseLevel(column.get("columnLevel"))));
+        }
+
+        // 输入中存在但输出遗漏的字段
+        Set<String> outputNames = columns.stream().map(c -> String.valueOf(c.get("columnName"))).collect(Collectors.toSet());
+        for (String inputName : inputByName.keySet()) {
+            if (!outputNames.contains(inputName)) {
+                repairColumns.add(inputName);
+            }
+        }
+        llmResult.put("columnInfoList", columns);
+
+        // 表级属性缺失时由字段结果合成
+        if (table != null) {
+            for (String key : new String[]{"tbName", "tbComment", "dbId", "id"}) {
+                if (!llmResult.containsKey(key) && table.containsKey(key)) {
+                    llmResult.put(key, table.get(key));
+                }
+            }
+        }
+        boolean missingTableLevel = !llmResult.containsKey("tableClassifications")
+                || !llmResult.containsKey("tableLevel") || !llmResult.containsKey("tableReasoning");
+        if (missingTableLevel && repairColumns.isEmpty() && !columns.isEmpty()) {
+            Map<String, Object> merged = TableResultMerger.merge(table != null ? table : llmResult, columns, modelKey);
+            for (String key : new String[]{"tableClassifications", "tableLevel", "tableReasoning", "modelKey", "modelReliability"}) {
+                llmResult.putIfAbsent(key, merged.get(key));
+            }
+            llmResult.putIfAbsent("tbName", merged.get("tbName"));
+        }
+        return repairColumns;
+    }
+
+    /**
+     * 兜底结果： 保留已有的有效字段， 其余字段标记需人工确认， 表级结论由字段结果合成
+     */
+    private Map<String, Object> fallback(Map<String, Object> llmResult, Map<String, Object> table) {
+        Map<String, Map<String, Object>> validByName = new HashMap<>();
+        if (llmResult != null) {
+            for (Map<String, Object> column : QueryParser.columns(llmResult)) {
+                if (column.containsKey("columnClassifications") && TableResultMerger.parseLevel(column.get("columnLevel")) > 0) {
+                    validByName.put(String.valueOf(column.get("columnName")), column);
+                }
+            }
+        }
+        List<Map<String, Object>> columns = new ArrayList<>();
+        for (Map<String, Object> input : QueryParser.columns(table)) {
+            Map<String, Object> valid = validByName.get(String.valueOf(input.get("columnName")));
+            if (valid != null) {
+                columns.add(valid);
+                continue;
+            }
+            Map<String, Object> column = new LinkedHashMap<>();
+            column.put("columnName", input.get("columnName"));
+            column.put("columnComment", input.get("columnComment"));
+            column.put("id", input.get("id"));
+            column.put("columnClassifications", "");
+            column.put("columnLevel", "");
+            column.put("columnReasoning", FALLBACK_REASONING);
+            column.put("modelReliability", 0);
+            column.put("modelKey", modelKey);
+            columns.add(column);
+        }
+        if (columns.isEmpty() && llmResult != null) {
+            columns.addAll(validByName.values());
+        }
+        Map<String, Object> merged = TableResultMerger.merge(table != null ? table : Map.of(), columns, modelKey);
+        merged.put("modelReliability", Math.min(40, TableResultMerger.parseReliability(merged.get("modelReliability"))));
+        return merged;
+    }
+
+    private boolean validateStructure(JsonNode jsonNode) {
         // 检查顶层必需字段
-        String[] requiredTopLevelKeys = {
-            "columnInfoList", "tbName", "tableClassifications", 
-            "tableLevel", "tableReasoning"
-        };
-        
-        for (String key : requiredTopLevelKeys) {
+        for (String key : REQUIRED_TOP_LEVEL_KEYS) {
             if (!jsonNode.has(key)) {
                 log.warn("缺少顶层字段: {}", key);
                 return false;
             }
         }
-        
+
         // 检查columnInfoList结构
         JsonNode columnInfoList = jsonNode.get("columnInfoList");
         if (!columnInfoList.isArray()) {
             log.warn("columnInfoList必须是数组");
             return false;
         }
-        
+
         // 检查每个字段的必需属性
-        String[] requiredColumnKeys = {
-            "columnName", "columnClassifications", "columnLevel", "columnReasoning"
-        };
-        
         for (JsonNode columnInfo : columnInfoList) {
-            for (String key : requiredColumnKeys) {
+            for (String key : REQUIRED_COLUMN_KEYS) {
                 if (!columnInfo.has(key)) {
                     log.warn("字段缺少必需属性: {}", key);
                     return false;
                 }
             }
         }
-        
+
         return true;
     }
 }
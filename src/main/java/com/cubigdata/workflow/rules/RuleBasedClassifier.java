@@ -0,0 +1,251 @@
+package com.cubigdata.workflow.rules;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 基于规则的字段预分类
+ * <p>
+ * 两类规则：
+ * 字段词典由知识库原文 “该字段属于“…> 目标类别”这一分类层级，字段名称是“xxx”，被归为“N级数据”” 编译而来，
+ * 字段注释或字段名与词典字段名完全一致（忽略空白与大小写）时命中； 带备注信息（级别视共现关系而定）的词条不参与预分类。
+ * 样例规则按 {@link ValueRule} 要求全部样例值匹配正则并通过 Luhn / 身份证校验位等校验。
+ * <p>
+ * 候选类别必须恰好有一个在本次目标类别列表中才会打标； 词典与样例规则给出的类别冲突时不打标， 均交给大模型判断。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 05:00
+ */
+@Slf4j
+public class RuleBasedClassifier {
+
+    private static final String REASONING_PREFIX = "根据《中国联通数据分类分级安全管理规范（试行）》要求，";
+    private static final Pattern ENTRY = Pattern.compile(
+            "该字段属于“([^”]+)”这一分类层级，字段名称是“([^”]+)”，被归为“\\s*(\\d)\\s*级数据”。?(备注信息)?");
+    private static final Pattern SAMPLE_SEPARATOR = Pattern.compile("[,，;；|\\s]+");
+    private static final int[] ID_CARD_WEIGHTS = {7, 9, 10, 5, 8, 4, 2, 1, 6, 3, 7, 9, 10, 5, 8, 4, 2};
+    private static final String ID_CARD_CHECK = "10X98765432";
+
+    /**
+     * 词典候选： 类别 -> 级别
+     */
+    private final Map<String, Map<String, Integer>> dictionary;
+    private final Set<String> conditional;
+    private final List<CompiledRule> valueRules;
+
+    private record CompiledRule(ValueRule rule, Pattern pattern, Pattern hint) {
+    }
+
+    /**
+     * 预分类结果
+     *
+     * @param evidence 命中的规则描述
+     */
+    public record Match(String category, int level, int reliability, String evidence) {
+
+        /**
+         * 与大模型输出一致的字段结果属性
+         */
+        public Map<String, Object> toColumnResult(String modelKey) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("columnClassifications", category);
+            result.put("columnLevel", String.valueOf(level));
+            result.put("modelKey", modelKey);
+            result.put("modelReliability", reliability);
+            result.put("columnReasoning", REASONING_PREFIX + "本字段由规则预分类判定为“" + category + "”，" + level
+                    + "级（证据：" + evidence + "）。");
+            return result;
+        }
+    }
+
+    public RuleBasedClassifier(Resource knowledgeBase, Resource valueRules, ObjectMapper objectMapper) throws IOException {
+        this.dictionary = new HashMap<>();
+        this.conditional = new HashSet<>();
+        try (InputStream in = knowledgeBase.getInputStream()) {
+            compileDictionary(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        this.valueRules = new ArrayList<>();
+        if (valueRules != null && valueRules.exists()) {
+            try (InputStream in = valueRules.getInputStream()) {
+                for (ValueRule rule : objectMapper.readValue(in, new TypeReference<List<ValueRule>>() {
+                })) {
+                    this.valueRules.add(new CompiledRule(rule, Pattern.compile(rule.pattern()),
+                            rule.hint() == null || rule.hint().isBlank() ? null : Pattern.compile(rule.hint())));
+                }
+            }
+        }
+        log.info("规则预分类已加载: 词典 {} 个字段名（{} 个依共现定级不参与）, 样例规则 {} 条",
+                dictionary.size(), conditional.size(), this.valueRules.size());
+    }
+
+    private void compileDictionary(String text) {
+        Matcher matcher = ENTRY.matcher(text);
+        while (matcher.find()) {
+            String[] path = matcher.group(1).split(">");
+            String category = path[path.length - 1].strip();
+            String name = normalize(matcher.group(2));
+            int level = Integer.parseInt(matcher.group(3));
+            if (matcher.group(4) != null) {
+                conditional.add(name);
+            }
+            // 同一字段名在同一类别下出现多次时取最高级
+            dictionary.computeIfAbsent(name, key -> new LinkedHashMap<>()).merge(category, level, Math::max);
+        }
+        conditional.forEach(dictionary::remove);
+    }
+
+    /**
+     * @param categories 本次目标类别列表， 为空时不限制
+     * @return 无法确定时返回 null
+     */
+    public Match classify(Map<String, Object> column, List<String> categories) {
+        Match byName = byDictionary(column, categories);
+        Match byValue = byValue(column, categories);
+        if (byName == null || byValue == null) {
+            return byName != null ? byName : byValue;
+        }
+        if (!byName.category().equals(byValue.category())) {
+            return null;
+        }
+        return new Match(byName.category(), Math.max(byName.level(), byValue.level()), 98,
+                byName.evidence() + "；" + byValue.evidence());
+    }
+
+    private Match byDictionary(Map<String, Object> column, List<String> categories) {
+        for (String key : new String[]{"columnComment", "columnName"}) {
+            Object value = column.get(key);
+            if (value == null || value.toString().isBlank()) {
+                continue;
+            }
+            Map<String, Integer> candidates = dictionary.get(normalize(value.toString()));
+            if (candidates == null) {
+                continue;
+            }
+            String category = single(candidates.keySet(), categories);
+            return category == null ? null
+                    : new Match(category, candidates.get(category), 95, "知识库字段“" + value.toString().strip() + "”");
+        }
+        return null;
+    }
+
+    private Match byValue(Map<String, Object> column, List<String> categories) {
+        List<String> samples = samples(column.get("exampleData"));
+        if (samples.isEmpty()) {
+            return null;
+        }
+        String nameText = column.getOrDefault("columnName", "") + " " + column.getOrDefault("columnComment", "");
+        for (CompiledRule compiled : valueRules) {
+            if (compiled.hint() != null && !compiled.hint().matcher(nameText).find()) {
+                continue;
+            }
+            if (samples.stream().allMatch(sample -> compiled.pattern().matcher(sample).matches()
+                    && validate(compiled.rule().validator(), sample))) {
+                String category = single(compiled.rule().categories(), categories);
+                return category == null ? null
+                        : new Match(category, compiled.rule().level(), 90, compiled.rule().description());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 候选类别中恰好有一个在目标类别列表中时返回该类别
+     */
+    private static String single(Collection<String> candidates, List<String> categories) {
+        if (categories == null || categories.isEmpty()) {
+            return candidates.size() == 1 ? candidates.iterator().next() : null;
+        }
+        String found = null;
+        for (String candidate : candidates) {
+            if (categories.contains(candidate)) {
+                if (found != null) {
+                    return null;
+                }
+                found = candidate;
+            }
+        }
+        return found;
+    }
+
+    private static List<String> samples(Object exampleData) {
+        List<String> samples = new ArrayList<>();
+        if (exampleData instanceof Collection<?> values) {
+            for (Object value : values) {
+                samples.addAll(samples(value));
+            }
+        } else if (exampleData != null) {
+            for (String sample : SAMPLE_SEPARATOR.split(exampleData.toString().strip())) {
+                if (!sample.isEmpty()) {
+                    samples.add(sample);
+                }
+            }
+        }
+        return samples;
+    }
+
+    private static boolean validate(String validator, String sample) {
+        if (validator == null || validator.isBlank()) {
+            return true;
+        }
+        return switch (validator) {
+            case "luhn" -> luhn(sample);
+            case "id-card" -> idCard(sample);
+            default -> false;
+        };
+    }
+
+    static boolean luhn(String digits) {
+        int sum = 0;
+        boolean twice = false;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int digit = digits.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return false;
+            }
+            if (twice) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            twice = !twice;
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * GB 11643 公民身份号码校验位
+     */
+    static boolean idCard(String number) {
+        if (number.length() != 18) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = 0; i < 17; i++) {
+            sum += (number.charAt(i) - '0') * ID_CARD_WEIGHTS[i];
+        }
+        return Character.toUpperCase(number.charAt(17)) == ID_CARD_CHECK.charAt(sum % 11);
+    }
+
+    private static String normalize(String text) {
+        return text.strip().replaceAll("\\s+", "").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,21 @@
+package com.cubigdata.workflow.rules;
+
+import java.util.List;
+
+/**
+ * 样例值识别规则
+ *
+ * @param name        规则名
+ * @param description 命中时写入推理的证据描述
+ * @param pattern     样例值需整体匹配的正则
+ * @param validator   附加校验： luhn / id-card， 为空表示不校验
+ * @param hint        字段名或注释需包含的正则， 为空表示不要求； 用于区分格式相近的编号
+ * @param categories  候选目标类别， 本次目标类别列表中恰好包含其一时才打标
+ * @param level       级别
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 05:00
+ */
+public record ValueRule(String name, String description, String pattern, String validator, String hint,
+                        List<String> categories, int level) {
+}
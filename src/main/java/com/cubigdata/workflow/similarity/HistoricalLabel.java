@@ -0,0 +1,26 @@
+package com.cubigdata.workflow.similarity;
+
+/**
+ * 历史打标记录
+ *
+ * @param type        column 或 table
+ * @param name        字段名/表名， 可为空
+ * @param description 字段/表描述， 作为相似度检索的文本
+ * @param category    历史类别
+ * @param level       历史级别
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 21:50
+ */
+public record HistoricalLabel(String type, String name, String description, String category, String level) {
+
+    public static final String COLUMN = "column";
+    public static final String TABLE = "table";
+
+    /**
+     * 参与向量化的文本， 描述为空时退化为名称
+     */
+    public String text() {
+        return description != null && !description.isBlank() ? description : (name == null ? "" : name);
+    }
+}
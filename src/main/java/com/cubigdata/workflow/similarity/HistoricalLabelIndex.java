@@ -0,0 +1,265 @@
+package com.cubigdata.workflow.similarity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 进程内历史打标相似度索引
+ * <p>
+ * 从 JSONL 文件（每行一个 {@link HistoricalLabel}）加载历史字段/表打标记录， 对描述向量化后做精确的余弦相似度检索，
+ * 替代外部 Python 相似度匹配服务。 向量按源文件内容哈希落盘， 源文件、向量模型与维度均不变时重启直接加载， 不再重复调用 embedding；
+ * 切换向量模型后旧向量与新查询向量不可比， 必须重新向量化。
+ * 首次检索时才加载， 加载失败会在下次检索时重试。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 21:50
+ */
+@Slf4j
+public class HistoricalLabelIndex {
+
+    private final EmbeddingModel embeddingModel;
+    private final ObjectMapper objectMapper;
+    private final Resource source;
+
+    /**
+     * 向量模型名称， 与维度一起写入落盘文件
+     */
+    private final String model;
+
+    /**
+     * 向量落盘文件， 为 null 表示不落盘
+     */
+    private final Path indexFile;
+
+    private final int embedBatchSize;
+
+    private volatile Snapshot snapshot;
+
+    public HistoricalLabelIndex(EmbeddingModel embeddingModel, ObjectMapper objectMapper, Resource source, String model,
+                                Path indexFile, int embedBatchSize) {
+        this.embeddingModel = embeddingModel;
+        this.objectMapper = objectMapper;
+        this.source = source;
+        this.model = model == null ? "" : model;
+        this.indexFile = indexFile;
+        this.embedBatchSize = Math.max(1, embedBatchSize);
+    }
+
+    public record Match(HistoricalLabel label, double score) {
+    }
+
+    /**
+     * 落盘格式
+     */
+    record Persisted(String sourceHash, String model, int dimensions, List<HistoricalLabel> labels, List<float[]> vectors) {
+    }
+
+    private record Snapshot(List<HistoricalLabel> labels, float[][] vectors) {
+    }
+
+    /**
+     * 对每个查询文本返回同类型记录中相似度不低于阈值的前 topN 条， 按相似度降序
+     */
+    public List<List<Match>> search(String type, List<String> texts, double threshold, int topN) {
+        Snapshot current = snapshot();
+        List<List<Match>> results = new ArrayList<>(texts.size());
+        if (texts.isEmpty()) {
+            return results;
+        }
+        // 空文本不参与检索， 直接返回空结果
+        List<String> nonBlank = texts.stream().filter(text -> text != null && !text.isBlank()).toList();
+        List<float[]> embedded = embed(nonBlank);
+        int next = 0;
+        for (String text : texts) {
+            if (text == null || text.isBlank()) {
+                results.add(List.of());
+                continue;
+            }
+            float[] query = embedded.get(next++);
+            if (current.vectors().length > 0 && query.length != current.vectors()[0].length) {
+                throw new IllegalStateException("查询向量维度 " + query.length + " 与历史打标索引维度 "
+                        + current.vectors()[0].length + " 不一致， 请检查向量模型配置");
+            }
+            PriorityQueue<Match> best = new PriorityQueue<>((a, b) -> Double.compare(a.score(), b.score()));
+            for (int i = 0; i < current.labels().size(); i++) {
+                HistoricalLabel label = current.labels().get(i);
+                if (!type.equals(label.type())) {
+                    continue;
+                }
+                double score = dot(query, current.vectors()[i]);
+                if (score < threshold) {
+                    continue;
+                }
+                best.offer(new Match(label, score));
+                if (best.size() > topN) {
+                    best.poll();
+                }
+            }
+            List<Match> matches = new ArrayList<>(best);
+            matches.sort((a, b) -> Double.compare(b.score(), a.score()));
+            results.add(matches);
+        }
+        return results;
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.labels().size();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = load();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        try {
+            byte[] content;
+            try (var inputStream = source.getInputStream()) {
+                content = inputStream.readAllBytes();
+            }
+            String sourceHash = sha256(content);
+            List<HistoricalLabel> labels = parse(content);
+
+            if (indexFile != null && Files.exists(indexFile)) {
+                Persisted persisted = objectMapper.readValue(indexFile.toFile(), Persisted.class);
+                if (reusable(persisted, sourceHash)) {
+                    log.info("从落盘文件加载历史打标索引: {}, 共 {} 条", indexFile, persisted.labels().size());
+                    return new Snapshot(persisted.labels(), persisted.vectors().toArray(new float[0][]));
+                }
+                log.info("历史打标文件或向量模型已变更（落盘模型 {}, 维度 {}）， 重新向量化", persisted.model(), persisted.dimensions());
+            }
+
+            log.info("正在向量化历史打标记录， 共 {} 条", labels.size());
+            List<float[]> vectors = embed(labels.stream().map(HistoricalLabel::text).toList());
+            if (indexFile != null) {
+                persist(new Persisted(sourceHash, model, vectors.isEmpty() ? 0 : vectors.get(0).length, labels, vectors));
+            }
+            return new Snapshot(labels, vectors.toArray(new float[0][]));
+        } catch (IOException e) {
+            throw new IllegalStateException("历史打标索引加载失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 源文件哈希、模型名称一致且落盘向量维度与当前模型一致时才复用
+     */
+    private boolean reusable(Persisted persisted, String sourceHash) {
+        if (!sourceHash.equals(persisted.sourceHash()) || !model.equals(persisted.model())
+                || persisted.labels() == null || persisted.vectors() == null
+                || persisted.vectors().size() != persisted.labels().size()) {
+            return false;
+        }
+        if (persisted.vectors().isEmpty()) {
+            return true;
+        }
+        return persisted.vectors().stream().allMatch(vector -> vector.length == persisted.dimensions())
+                && persisted.dimensions() == embeddingModel.dimensions();
+    }
+
+    private List<HistoricalLabel> parse(byte[] content) throws IOException {
+        List<HistoricalLabel> labels = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(content), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                HistoricalLabel label = objectMapper.readValue(line, HistoricalLabel.class);
+                if (!label.text().isBlank()) {
+                    labels.add(label);
+                }
+            }
+        }
+        return labels;
+    }
+
+    private void persist(Persisted persisted) {
+        try {
+            if (indexFile.getParent() != null) {
+                Files.createDirectories(indexFile.getParent());
+            }
+            Path tmp = Files.createTempFile(indexFile.getParent() != null ? indexFile.getParent() : Path.of("."),
+                    "historical_index_", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), persisted);
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("历史打标索引已落盘: {}", indexFile);
+        } catch (IOException e) {
+            log.warn("历史打标索引落盘失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 分批向量化并归一化， 归一化后点积即余弦相似度
+     */
+    private List<float[]> embed(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (int from = 0; from < texts.size(); from += embedBatchSize) {
+            List<String> batch = texts.subList(from, Math.min(texts.size(), from + embedBatchSize));
+            for (float[] vector : embeddingModel.embed(batch)) {
+                vectors.add(normalize(vector));
+            }
+        }
+        return vectors;
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        if (norm == 0) {
+            return vector;
+        }
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    static double dot(float[] a, float[] b) {
+        int length = Math.min(a.length, b.length);
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.cubigdata.workflow.support;
+
+/**
+ * 宽表分片配置
+ *
+ * @param enabled     是否开启分片
+ * @param chunkSize   每片字段数
+ * @param threshold   待打标字段数超过该值才分片
+ * @param parallelism 分片并发数
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 16:40
+ */
+public record ChunkingOptions(boolean enabled, int chunkSize, int threshold, int parallelism) {
+
+    public static ChunkingOptions disabled() {
+        return new ChunkingOptions(false, 0, 0, 1);
+    }
+
+    public boolean shouldChunk(int columnCount) {
+        return enabled && chunkSize > 0 && columnCount > Math.max(threshold, chunkSize);
+    }
+}
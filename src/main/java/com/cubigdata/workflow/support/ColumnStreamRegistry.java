@@ -0,0 +1,41 @@
+package com.cubigdata.workflow.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 字段级流式事件登记表
+ * <p>
+ * 控制器以 stream_id 登记监听器并写入工作流输入， 分类节点每解析出一个完整字段即通过 stream_id 推送。
+ * 未登记的 stream_id 返回空监听器。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 19:25
+ */
+public class ColumnStreamRegistry {
+
+    private static final Consumer<Map<String, Object>> NOOP = column -> {
+    };
+
+    private final Map<String, Consumer<Map<String, Object>>> listeners = new ConcurrentHashMap<>();
+
+    public void register(String streamId, Consumer<Map<String, Object>> listener) {
+        listeners.put(streamId, listener);
+    }
+
+    public void unregister(String streamId) {
+        listeners.remove(streamId);
+    }
+
+    public Consumer<Map<String, Object>> listener(Object streamId) {
+        if (streamId == null) {
+            return NOOP;
+        }
+        return listeners.getOrDefault(streamId.toString(), NOOP);
+    }
+
+    public boolean isRegistered(Object streamId) {
+        return streamId != null && listeners.containsKey(streamId.toString());
+    }
+}
@@ -0,0 +1,160 @@
+package com.cubigdata.workflow.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 紧凑输出模式的编解码
+ * <p>
+ * 大模型按 {"c":[[字段序号,类别序号,级别,置信度,"理由"],...],"t":[类别序号,级别,置信度,"理由"]} 输出，
+ * 序号均从 1 开始， 类别序号对应 Prompt 中编号的目标类别列表。 这里展开为与完整输出一致的结构
+ * （columnInfoList 与表级属性）， 推理文本由简短理由补齐为标准句式。 不含 "c" 的输出原样返回。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 04:30
+ */
+public class CompactOutputCodec {
+
+    private static final String REASONING_PREFIX = "根据《中国联通数据分类分级安全管理规范（试行）》要求，";
+    private static final String[] TABLE_PASSTHROUGH_KEYS = {"dbId", "id", "tbComment", "tbName"};
+
+    private final String modelKey;
+
+    public CompactOutputCodec(String modelKey) {
+        this.modelKey = modelKey;
+    }
+
+    /**
+     * 编号的目标类别列表， 如 "1.自然人身份标识 2.用户私密资料"
+     */
+    public String categoryList(List<String> categories) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < categories.size(); i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(i + 1).append('.').append(categories.get(i));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param table      原始表信息， 用于补齐表级透传属性， 可为 null
+     * @param columns    本次交给大模型的字段， 字段序号按此顺序解析
+     * @param categories 本次的目标类别列表， 类别序号按此顺序解析
+     */
+    public Map<String, Object> expand(Map<String, Object> output, Map<String, Object> table,
+                                      List<Map<String, Object>> columns, List<String> categories) {
+        if (output == null || !(output.get("c") instanceof Collection<?> rows)) {
+            return output;
+        }
+        List<Map<String, Object>> columnInfoList = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            if (!(row instanceof List<?> values) || values.isEmpty()) {
+                continue;
+            }
+            Map<String, Object> input = column(values.get(0), columns);
+            if (input == null) {
+                continue;
+            }
+            Map<String, Object> column = new LinkedHashMap<>();
+            column.put("columnComment", input.getOrDefault("columnComment", ""));
+            column.put("columnName", input.get("columnName"));
+            if (input.containsKey("id")) {
+                column.put("id", input.get("id"));
+            }
+            String classification = category(at(values, 1), categories);
+            int level = TableResultMerger.parseLevel(at(values, 2));
+            if (classification != null) {
+                column.put("columnClassifications", classification);
+            }
+            if (level > 0) {
+                column.put("columnLevel", String.valueOf(level));
+            }
+            column.put("modelKey", modelKey);
+            column.put("modelReliability", reliability(at(values, 3)));
+            column.put("columnReasoning", reasoning("本字段", classification, level, at(values, 4)));
+            columnInfoList.add(column);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("columnInfoList", columnInfoList);
+        if (table != null) {
+            for (String key : TABLE_PASSTHROUGH_KEYS) {
+                if (table.containsKey(key)) {
+                    result.put(key, table.get(key));
+                }
+            }
+        }
+        if (output.get("t") instanceof List<?> values && !values.isEmpty()) {
+            String classification = category(at(values, 0), categories);
+            int level = TableResultMerger.parseLevel(at(values, 1));
+            if (classification != null && level > 0) {
+                result.put("tableClassifications", classification);
+                result.put("tableLevel", String.valueOf(level));
+                result.put("tableReasoning", reasoning("本表", classification, level, at(values, 3)));
+                result.put("modelKey", modelKey);
+                result.put("modelReliability", reliability(at(values, 2)));
+            }
+        }
+        return result;
+    }
+
+    private static Object at(List<?> values, int index) {
+        return index < values.size() ? values.get(index) : null;
+    }
+
+    /**
+     * 字段序号（从 1 开始）或字段名
+     */
+    private static Map<String, Object> column(Object ref, List<Map<String, Object>> columns) {
+        if (ref instanceof Number number) {
+            int index = number.intValue() - 1;
+            return index >= 0 && index < columns.size() ? columns.get(index) : null;
+        }
+        if (ref != null) {
+            String name = ref.toString().strip();
+            for (Map<String, Object> column : columns) {
+                if (name.equalsIgnoreCase(String.valueOf(column.get("columnName")))) {
+                    return column;
+                }
+            }
+            if (name.matches("\\d+")) {
+                return column(Integer.parseInt(name), columns);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 类别序号（从 1 开始）； 大模型直接给出类别名时原样使用， 交由类别验证节点校验
+     */
+    private static String category(Object ref, List<String> categories) {
+        if (ref == null) {
+            return null;
+        }
+        String text = ref.toString().strip();
+        if (ref instanceof Number || text.matches("\\d+")) {
+            int index = (ref instanceof Number number ? number.intValue() : Integer.parseInt(text)) - 1;
+            return index >= 0 && index < categories.size() ? categories.get(index) : null;
+        }
+        return text.isEmpty() ? null : text;
+    }
+
+    private static int reliability(Object value) {
+        int reliability = TableResultMerger.parseReliability(value);
+        return reliability > 0 ? reliability : 60;
+    }
+
+    private static String reasoning(String subject, String classification, int level, Object reason) {
+        StringBuilder sb = new StringBuilder(REASONING_PREFIX).append(subject).append("判定为“")
+                .append(classification == null ? "" : classification).append("”，").append(level).append("级");
+        if (reason != null && !reason.toString().isBlank()) {
+            sb.append("（证据：").append(reason.toString().strip()).append("）");
+        }
+        return sb.append('。').toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.cubigdata.workflow.support;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeAction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 带超时控制的节点
+ * <p>
+ * 每次执行的超时取节点预算与请求剩余时间（状态中的 deadline， 毫秒时间戳）中较小者，
+ * 超时后取消下游执行并以 {@link TimeoutException} 结束。
+ * 节点预算为空或非正数时只受请求截止时间约束。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 20:40
+ */
+public class DeadlineNodeAction implements AsyncNodeAction {
+
+    public static final String DEADLINE_KEY = "deadline";
+
+    private final String nodeId;
+    private final AsyncNodeAction delegate;
+    private final Duration budget;
+
+    public DeadlineNodeAction(String nodeId, AsyncNodeAction delegate, Duration budget) {
+        this.nodeId = nodeId;
+        this.delegate = delegate;
+        this.budget = budget;
+    }
+
+    public static AsyncNodeAction withDeadline(String nodeId, AsyncNodeAction delegate, Duration budget) {
+        return new DeadlineNodeAction(nodeId, delegate, budget);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> apply(OverAllState state) {
+        Duration timeout = effectiveTimeout(state);
+        if (timeout == null) {
+            return delegate.apply(state);
+        }
+        if (timeout.isNegative() || timeout.isZero()) {
+            return CompletableFuture.failedFuture(
+                    new TimeoutException(String.format("节点 %s 未执行: 请求已超过截止时间", nodeId)));
+        }
+        return Mono.fromFuture(() -> delegate.apply(state))
+                .timeout(timeout, Mono.error(() -> new TimeoutException(
+                        String.format("节点 %s 执行超时(%dms)", nodeId, timeout.toMillis()))))
+                .toFuture();
+    }
+
+    private Duration effectiveTimeout(OverAllState state) {
+        Duration timeout = budget != null && !budget.isNegative() && !budget.isZero() ? budget : null;
+        Duration remaining = remaining(state);
+        if (remaining != null && (timeout == null || remaining.compareTo(timeout) < 0)) {
+            timeout = remaining;
+        }
+        return timeout;
+    }
+
+    /**
+     * 请求剩余时间， 状态中没有 deadline 时返回 null
+     */
+    public static Duration remaining(OverAllState state) {
+        Object deadline = state.value(DEADLINE_KEY).orElse(null);
+        if (deadline instanceof Number number) {
+            return Duration.ofMillis(number.longValue() - System.currentTimeMillis());
+        }
+        return null;
+    }
+}
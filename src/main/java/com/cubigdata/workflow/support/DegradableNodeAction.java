@@ -0,0 +1,97 @@
+package com.cubigdata.workflow.support;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeAction;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 可降级节点
+ * <p>
+ * 熔断打开、执行失败或超时时不让整个工作流失败， 而是输出兜底值继续执行，
+ * 并在状态中写入 {@code degraded_<nodeId>} 记录缺失的输入及原因。 执行成功时写入空标记覆盖，
+ * 避免同一 threadId 的 checkpoint 中残留上一次的降级标记。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 21:15
+ */
+@Slf4j
+public class DegradableNodeAction implements AsyncNodeAction {
+
+    public static final String DEGRADED_KEY_PREFIX = "degraded_";
+
+    private final String nodeId;
+    private final AsyncNodeAction delegate;
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * 降级时输出的兜底值， key 即被跳过的输入
+     */
+    private final Map<String, Object> fallback;
+
+    public DegradableNodeAction(String nodeId, AsyncNodeAction delegate, CircuitBreaker circuitBreaker, Map<String, Object> fallback) {
+        this.nodeId = nodeId;
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.fallback = fallback;
+    }
+
+    public static String degradedKey(String nodeId) {
+        return DEGRADED_KEY_PREFIX + nodeId;
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> apply(OverAllState state) {
+        if (!circuitBreaker.tryAcquire()) {
+            log.warn("节点 {} 熔断中， 跳过执行", nodeId);
+            return CompletableFuture.completedFuture(degraded("熔断中"));
+        }
+        CompletableFuture<Map<String, Object>> future;
+        try {
+            future = delegate.apply(state);
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.handle((output, throwable) -> {
+            if (throwable == null) {
+                circuitBreaker.onSuccess();
+                Map<String, Object> cleared = output == null ? new HashMap<>() : new HashMap<>(output);
+                cleared.put(degradedKey(nodeId), Map.of());
+                return cleared;
+            }
+            circuitBreaker.onFailure();
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+            log.warn("节点 {} 执行失败， 降级继续: {}", nodeId, cause.toString());
+            return degraded(cause.getClass().getSimpleName() + ": " + cause.getMessage());
+        });
+    }
+
+    private Map<String, Object> degraded(String reason) {
+        Map<String, Object> output = new HashMap<>(fallback);
+        Map<String, Object> marker = new LinkedHashMap<>();
+        marker.put("inputs", List.copyOf(fallback.keySet()));
+        marker.put("reason", reason);
+        output.put(degradedKey(nodeId), marker);
+        return output;
+    }
+
+    /**
+     * 收集本次执行中被降级的输入， key 为缺失的输入名， value 为原因
+     */
+    public static Map<String, Object> degradedInputs(Map<String, Object> data) {
+        Map<String, Object> missing = new LinkedHashMap<>();
+        data.forEach((key, value) -> {
+            if (key.startsWith(DEGRADED_KEY_PREFIX) && value instanceof Map<?, ?> marker
+                    && marker.get("inputs") instanceof List<?> inputs) {
+                inputs.forEach(input -> missing.put(String.valueOf(input), marker.get("reason")));
+            }
+        });
+        return missing;
+    }
+}
@@ -0,0 +1,35 @@
+package com.cubigdata.workflow.support;
+
+import java.time.Duration;
+
+/**
+ * 对冲请求配置
+ *
+ * @param enabled    是否开启对冲
+ * @param percentile 以该分位延迟作为对冲触发延迟
+ * @param minDelay   触发延迟下限， 避免过早对冲放大下游压力
+ * @param minSamples 样本数不足时不对冲
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 20:40
+ */
+public record HedgingOptions(boolean enabled, double percentile, Duration minDelay, int minSamples) {
+
+    public static HedgingOptions disabled() {
+        return new HedgingOptions(false, 0.95, Duration.ZERO, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 根据当前延迟统计计算对冲延迟， 不满足对冲条件时返回 null
+     */
+    public Duration hedgeDelay(LatencyTracker tracker) {
+        if (!enabled || tracker.count() < minSamples) {
+            return null;
+        }
+        Duration delay = tracker.percentile(percentile);
+        if (delay == null) {
+            return null;
+        }
+        return delay.compareTo(minDelay) < 0 ? minDelay : delay;
+    }
+}
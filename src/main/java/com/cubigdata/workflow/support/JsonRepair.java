@@ -0,0 +1,88 @@
+package com.cubigdata.workflow.support;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 截断 JSON 的本地修复
+ * <p>
+ * 大模型输出因长度限制被截断时， 回退到最后一个完整的值， 丢弃写了一半的元素并补齐括号。
+ * 被丢弃的字段由结构化校验识别为缺失字段， 再走定向补全。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 17:20
+ */
+public final class JsonRepair {
+
+    private JsonRepair() {
+    }
+
+    /**
+     * 修复被截断的 JSON 对象， 无法修复时返回 null
+     */
+    public static String repairTruncated(String text) {
+        if (text == null) {
+            return null;
+        }
+        int start = text.indexOf('{');
+        if (start < 0) {
+            return null;
+        }
+
+        Deque<Character> stack = new ArrayDeque<>();
+        boolean inStr = false;
+        boolean escaped = false;
+        int safeEnd = -1;
+        String safeClosers = null;
+
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inStr) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inStr = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> inStr = true;
+                case '{' -> stack.push('}');
+                case '[' -> stack.push(']');
+                case '}', ']' -> {
+                    if (stack.isEmpty() || stack.peek() != c) {
+                        return null;
+                    }
+                    stack.pop();
+                    if (stack.isEmpty()) {
+                        // 本身就是完整的 JSON
+                        return text.substring(start, i + 1);
+                    }
+                    safeEnd = i + 1;
+                    safeClosers = closers(stack);
+                }
+                case ',' -> {
+                    safeEnd = i;
+                    safeClosers = closers(stack);
+                }
+                default -> {
+                }
+            }
+        }
+
+        if (safeEnd < 0) {
+            return null;
+        }
+        return text.substring(start, safeEnd) + safeClosers;
+    }
+
+    private static String closers(Deque<Character> stack) {
+        StringBuilder sb = new StringBuilder();
+        for (Character closer : stack) {
+            sb.append(closer);
+        }
+        return sb.toString();
+    }
+}
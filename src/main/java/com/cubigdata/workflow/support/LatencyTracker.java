@@ -0,0 +1,48 @@
+package com.cubigdata.workflow.support;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * 滑动窗口延迟统计
+ * <p>
+ * 保留最近 windowSize 次调用耗时， 用于计算对冲请求的触发延迟。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 20:40
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    public LatencyTracker(int windowSize) {
+        this.samples = new long[Math.max(1, windowSize)];
+    }
+
+    public synchronized void record(Duration latency) {
+        samples[next] = latency.toMillis();
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * 计算分位延迟， 样本为空时返回 null
+     */
+    public synchronized Duration percentile(double percentile) {
+        if (count == 0) {
+            return null;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(Math.min(1.0, Math.max(0.0, percentile)) * count) - 1;
+        return Duration.ofMillis(sorted[Math.max(0, index)]);
+    }
+}
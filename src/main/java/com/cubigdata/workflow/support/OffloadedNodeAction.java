@@ -0,0 +1,42 @@
+package com.cubigdata.workflow.support;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeAction;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 将同步节点转为异步节点
+ * <p>
+ * {@code node_async} 在调用线程上同步执行节点， 这里改为在独立的有界调度器上执行，
+ * 向量检索等阻塞或 CPU 密集的操作不再占用图执行线程和请求线程。
+ * 有响应式接口的 I/O 节点（大模型调用、相似度匹配）应直接实现 AsyncNodeAction， 不经过这里。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 20:10
+ */
+public class OffloadedNodeAction implements AsyncNodeAction {
+
+    private final NodeAction delegate;
+    private final Scheduler scheduler;
+
+    public OffloadedNodeAction(NodeAction delegate, Scheduler scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+
+    public static AsyncNodeAction offload(NodeAction delegate, Scheduler scheduler) {
+        return new OffloadedNodeAction(delegate, scheduler);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> apply(OverAllState state) {
+        return Mono.fromCallable(() -> delegate.apply(state))
+                .subscribeOn(scheduler)
+                .toFuture();
+    }
+}
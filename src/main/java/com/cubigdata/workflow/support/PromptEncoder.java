@@ -0,0 +1,171 @@
+package com.cubigdata.workflow.support;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 分类 Prompt 中表信息与上下文的编码
+ * <p>
+ * 紧凑模式下：
+ * 表信息渲染为一行表头加每字段一行的竖线分隔表格， 样例数据截断到 maxSampleChars；
+ * 历史相似结果只保留描述、类别、级别与相似度， 无匹配的字段不输出；
+ * 知识库文档去掉 "Document: " 前缀与元数据行， 按段落去重。
+ * 关闭紧凑模式时与原先的 JSON 编码一致。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 04:00
+ */
+public class PromptEncoder {
+
+    private static final List<String> LEADING_COLUMN_KEYS = List.of("id", "columnName", "columnComment", "exampleData");
+    private static final Pattern METADATA_LINE = Pattern.compile("^[A-Za-z_][A-Za-z0-9_]*: .*");
+    private static final String DOCUMENT_PREFIX = "Document: ";
+
+    private final ObjectMapper mapper;
+    private final boolean compact;
+    private final int maxSampleChars;
+
+    public PromptEncoder(ObjectMapper mapper, boolean compact, int maxSampleChars) {
+        this.mapper = mapper;
+        this.compact = compact;
+        this.maxSampleChars = maxSampleChars;
+    }
+
+    /**
+     * @param query 表信息， Map 或 JSON 字符串
+     */
+    public String table(Object query) throws JsonProcessingException {
+        if (!compact) {
+            return mapper.writeValueAsString(query instanceof Map<?, ?> ? mapper.writeValueAsString(query) : query);
+        }
+        Map<String, Object> table = QueryParser.parseTable(mapper, query);
+        if (table == null) {
+            return query == null ? "" : query.toString();
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Object> entry : table.entrySet()) {
+            if (!"columnInfoList".equals(entry.getKey())) {
+                sb.append(entry.getKey()).append(": ").append(cell(entry.getValue(), Integer.MAX_VALUE)).append('\n');
+            }
+        }
+        List<Map<String, Object>> columns = QueryParser.columns(table);
+        Set<String> keys = new LinkedHashSet<>();
+        for (String key : LEADING_COLUMN_KEYS) {
+            if (columns.stream().anyMatch(column -> column.containsKey(key))) {
+                keys.add(key);
+            }
+        }
+        columns.forEach(column -> keys.addAll(column.keySet()));
+        sb.append("columnInfoList:\n").append(String.join(" | ", keys)).append('\n');
+        for (Map<String, Object> column : columns) {
+            List<String> cells = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                cells.add(cell(column.get(key), "exampleData".equals(key) ? maxSampleChars : Integer.MAX_VALUE));
+            }
+            sb.append(String.join(" | ", cells)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    public String categories(Object category) throws JsonProcessingException {
+        if (!compact) {
+            return mapper.writeValueAsString(category);
+        }
+        return String.join("、", QueryParser.parseCategories(mapper, category));
+    }
+
+    /**
+     * @param docs 知识库检索结果（"Document: ..." 拼接的字符串）
+     */
+    public String documents(Object docs) throws JsonProcessingException {
+        if (!compact) {
+            return mapper.writeValueAsString(docs);
+        }
+        Set<String> paragraphs = new LinkedHashSet<>();
+        for (String line : String.valueOf(docs == null ? "" : docs).split("\n")) {
+            String text = line.strip();
+            if (text.startsWith(DOCUMENT_PREFIX)) {
+                text = text.substring(DOCUMENT_PREFIX.length()).strip();
+            }
+            if (!text.isEmpty() && !METADATA_LINE.matcher(text).matches()) {
+                paragraphs.add(text);
+            }
+        }
+        return String.join("\n", paragraphs);
+    }
+
+    /**
+     * @param simMatch 相似度匹配结果（字段信息 / 表信息）
+     */
+    public String similarity(Object simMatch) throws JsonProcessingException {
+        if (!compact) {
+            return mapper.writeValueAsString(simMatch);
+        }
+        if (!(simMatch instanceof Map<?, ?> result)) {
+            return simMatch == null ? "" : simMatch.toString();
+        }
+        StringBuilder sb = new StringBuilder();
+        appendMatches(sb, result.get("字段信息"), "字段名", "历史相似字段");
+        appendMatches(sb, result.get("表信息"), "表名", "历史相似表");
+        return sb.isEmpty() ? "无" : sb.toString();
+    }
+
+    private void appendMatches(StringBuilder sb, Object items, String nameKey, String matchesKey) {
+        if (!(items instanceof Collection<?> list)) {
+            return;
+        }
+        for (Object item : list) {
+            if (!(item instanceof Map<?, ?> entry) || !(entry.get(matchesKey) instanceof Collection<?> matches)
+                    || matches.isEmpty()) {
+                continue;
+            }
+            sb.append(cell(entry.get(nameKey), Integer.MAX_VALUE));
+            Object description = entry.get("描述");
+            if (description != null && !description.toString().isBlank()) {
+                sb.append('(').append(cell(description, Integer.MAX_VALUE)).append(')');
+            }
+            sb.append(": ");
+            List<String> rendered = new ArrayList<>(matches.size());
+            for (Object match : matches) {
+                if (match instanceof Map<?, ?> m) {
+                    rendered.add(cell(m.get("描述"), Integer.MAX_VALUE) + "→" + cell(m.get("类别"), Integer.MAX_VALUE)
+                            + "/" + cell(m.get("级别"), Integer.MAX_VALUE) + "级(" + score(m.get("相似度")) + ")");
+                }
+            }
+            sb.append(String.join("; ", rendered)).append('\n');
+        }
+    }
+
+    private static String score(Object value) {
+        if (value instanceof Number number) {
+            return String.format("%.2f", number.doubleValue());
+        }
+        return value == null ? "" : value.toString();
+    }
+
+    private String cell(Object value, int maxChars) {
+        if (value == null) {
+            return "";
+        }
+        String text;
+        if (value instanceof Collection<?> || value instanceof Map<?, ?>) {
+            try {
+                text = mapper.writeValueAsString(value);
+            } catch (JsonProcessingException e) {
+                text = value.toString();
+            }
+        } else {
+            text = value.toString();
+        }
+        text = text.replace('\n', ' ').replace('\r', ' ').replace("|", "/").strip();
+        return text.length() > maxChars ? text.substring(0, maxChars) + "…" : text;
+    }
+}
@@ -0,0 +1,84 @@
+package com.cubigdata.workflow.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 解析工作流输入中的表信息与类别列表
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 16:05
+ */
+@Slf4j
+public final class QueryParser {
+
+    private QueryParser() {
+    }
+
+    /**
+     * 解析 query（GraphController 序列化后的 JSON 字符串或 Map）， 解析失败返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseTable(ObjectMapper mapper, Object query) {
+        try {
+            if (query instanceof Map<?, ?> map) {
+                return (Map<String, Object>) map;
+            }
+            if (query instanceof String queryStr && !queryStr.isBlank()) {
+                JsonNode node = mapper.readTree(queryStr);
+                // 兼容被重复序列化的字符串
+                if (node.isTextual()) {
+                    node = mapper.readTree(node.asText());
+                }
+                return node.isObject() ? mapper.convertValue(node, Map.class) : null;
+            }
+        } catch (Exception e) {
+            log.warn("解析query失败: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 取出表的字段列表， 不存在时返回空列表
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Map<String, Object>> columns(Map<String, Object> table) {
+        if (table == null || !(table.get("columnInfoList") instanceof List<?> list)) {
+            return List.of();
+        }
+        List<Map<String, Object>> columns = new ArrayList<>();
+        for (Object item : list) {
+            if (item instanceof Map<?, ?> column) {
+                columns.add((Map<String, Object>) column);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * 解析类别列表， 支持 List 与 JSON 数组字符串
+     */
+    public static List<String> parseCategories(ObjectMapper mapper, Object category) {
+        List<String> categories = new ArrayList<>();
+        try {
+            if (category instanceof List<?> list) {
+                list.forEach(item -> categories.add(String.valueOf(item)));
+            } else if (category instanceof String categoryStr && !categoryStr.isBlank()) {
+                JsonNode node = mapper.readTree(categoryStr);
+                if (node.isArray()) {
+                    node.forEach(item -> categories.add(item.asText()));
+                } else {
+                    categories.add(node.asText());
+                }
+            }
+        } catch (Exception e) {
+            categories.add(category.toString());
+        }
+        return categories;
+    }
+}
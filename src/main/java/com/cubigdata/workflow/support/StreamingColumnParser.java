@@ -0,0 +1,114 @@
+package com.cubigdata.workflow.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量解析大模型流式输出中的 columnInfoList
+ * <p>
+ * 每次喂入一段 token 文本， 返回本次新完成的 columnInfoList 元素（JSON 字符串）。
+ * 只做括号与字符串状态跟踪， 不做完整 JSON 解析， 单次喂入的开销与片段长度成正比。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 19:10
+ */
+public class StreamingColumnParser {
+
+    private static final String COLUMN_LIST_KEY = "columnInfoList";
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    private int pos = 0;
+    private boolean started = false;
+    private int depth = 0;
+    private boolean inStr = false;
+    private boolean escaped = false;
+    private int strStart = -1;
+    private String lastTopLevelString = null;
+
+    /**
+     * columnInfoList 数组内元素所在深度， -1 表示尚未进入数组
+     */
+    private int arrayDepth = -1;
+    private int elementStart = -1;
+    private int emitted = 0;
+
+    public List<String> feed(String chunk) {
+        List<String> completed = new ArrayList<>();
+        if (chunk == null || chunk.isEmpty()) {
+            return completed;
+        }
+        buffer.append(chunk);
+        for (; pos < buffer.length(); pos++) {
+            char c = buffer.charAt(pos);
+            if (!started) {
+                // 跳过 ```json 等前缀
+                if (c != '{') {
+                    continue;
+                }
+                started = true;
+            }
+            if (inStr) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inStr = false;
+                    if (depth == 1) {
+                        lastTopLevelString = buffer.substring(strStart + 1, pos);
+                    }
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> {
+                    inStr = true;
+                    strStart = pos;
+                }
+                case '{', '[' -> {
+                    depth++;
+                    if (c == '[' && depth == 2 && arrayDepth < 0 && COLUMN_LIST_KEY.equals(lastTopLevelString)) {
+                        arrayDepth = depth;
+                    } else if (c == '{' && arrayDepth > 0 && depth == arrayDepth + 1) {
+                        elementStart = pos;
+                    }
+                }
+                case '}', ']' -> {
+                    if (c == '}' && arrayDepth > 0 && depth == arrayDepth + 1 && elementStart >= 0) {
+                        completed.add(buffer.substring(elementStart, pos + 1));
+                        elementStart = -1;
+                        emitted++;
+                    } else if (c == ']' && depth == arrayDepth) {
+                        arrayDepth = -2;
+                    }
+                    depth--;
+                }
+                default -> {
+                }
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * 已接收的完整文本
+     */
+    public String text() {
+        return buffer.toString();
+    }
+
+    /**
+     * 已解析出的字段数
+     */
+    public int emitted() {
+        return emitted;
+    }
+
+    /**
+     * 已接收足够多的非空白内容却仍未出现 JSON 对象， 视为输出异常
+     */
+    public boolean looksMalformed(int maxPreambleChars) {
+        return !started && buffer.toString().strip().length() > maxPreambleChars;
+    }
+}
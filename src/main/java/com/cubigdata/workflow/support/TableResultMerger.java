@@ -0,0 +1,126 @@
+package com.cubigdata.workflow.support;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 由字段级结果确定性地合成表级结果
+ * <p>
+ * tableLevel 取全表字段最高级（就高不就低）； tableClassifications 按字段证据加权投票，
+ * 权重 = 字段级别 × 置信度， 同分时取最高级字段更多的类别， 再按字段出现顺序决定。
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/17 15:50
+ */
+public final class TableResultMerger {
+
+    private static final String[] TABLE_PASSTHROUGH_KEYS = {"dbId", "id", "tbComment", "tbName"};
+
+    private TableResultMerger() {
+    }
+
+    /**
+     * 合成表级结果， 输出结构与大模型输出一致
+     *
+     * @param table    原始表信息（tbName、tbComment、dbId、id 等）
+     * @param columns  按输入顺序排列的字段结果
+     * @param modelKey 模型标识
+     */
+    public static Map<String, Object> merge(Map<String, Object> table, List<Map<String, Object>> columns, String modelKey) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("columnInfoList", new ArrayList<>(columns));
+        for (String key : TABLE_PASSTHROUGH_KEYS) {
+            Object value = table.get(key);
+            result.put(key, value == null ? "" : value);
+        }
+
+        int tableLevel = 0;
+        Map<String, double[]> votes = new LinkedHashMap<>();
+        Map<String, List<String>> evidence = new LinkedHashMap<>();
+        double reliabilitySum = 0;
+        double weightSum = 0;
+        for (Map<String, Object> column : columns) {
+            int level = parseLevel(column.get("columnLevel"));
+            int reliability = parseReliability(column.get("modelReliability"));
+            tableLevel = Math.max(tableLevel, level);
+
+            String classification = firstClassification(column.get("columnClassifications"));
+            if (classification == null) {
+                continue;
+            }
+            double weight = Math.max(level, 1) * Math.max(reliability, 1) / 100d;
+            double[] vote = votes.computeIfAbsent(classification, k -> new double[2]);
+            vote[0] += weight;
+            vote[1] = Math.max(vote[1], level);
+            evidence.computeIfAbsent(classification, k -> new ArrayList<>())
+                    .add(String.valueOf(column.getOrDefault("columnName", "")));
+            reliabilitySum += reliability * weight;
+            weightSum += weight;
+        }
+
+        String tableClassification = null;
+        double[] best = null;
+        for (Map.Entry<String, double[]> entry : votes.entrySet()) {
+            double[] vote = entry.getValue();
+            if (best == null || vote[0] > best[0] || (vote[0] == best[0] && vote[1] > best[1])) {
+                best = vote;
+                tableClassification = entry.getKey();
+            }
+        }
+
+        result.put("tableClassifications", tableClassification == null ? "" : tableClassification);
+        result.put("tableLevel", String.valueOf(tableLevel));
+        result.put("tableReasoning", buildReasoning(tableClassification, tableLevel, evidence));
+        result.put("modelKey", modelKey);
+        result.put("modelReliability", weightSum == 0 ? 0 : (int) Math.round(reliabilitySum / weightSum));
+        return result;
+    }
+
+    /**
+     * 解析级别， 兼容 "4"、"4级"、4 等写法， 无法解析时返回 0
+     */
+    public static int parseLevel(Object level) {
+        if (level instanceof Number number) {
+            return number.intValue();
+        }
+        if (level == null) {
+            return 0;
+        }
+        for (char c : level.toString().toCharArray()) {
+            if (c >= '0' && c <= '9') {
+                return c - '0';
+            }
+        }
+        return 0;
+    }
+
+    public static int parseReliability(Object reliability) {
+        if (reliability instanceof Number number) {
+            return number.intValue();
+        }
+        try {
+            return reliability == null ? 0 : (int) Double.parseDouble(reliability.toString().trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String firstClassification(Object classification) {
+        if (classification instanceof List<?> list) {
+            return list.isEmpty() ? null : String.valueOf(list.get(0));
+        }
+        return classification == null || classification.toString().isBlank() ? null : classification.toString();
+    }
+
+    private static String buildReasoning(String classification, int tableLevel, Map<String, List<String>> evidence) {
+        if (classification == null) {
+            return "根据《中国联通数据分类分级安全管理规范（试行）》要求，表中无可用字段结果，无法判定表类别。";
+        }
+        List<String> keyColumns = evidence.get(classification);
+        return String.format("根据《中国联通数据分类分级安全管理规范（试行）》要求，按字段级别与置信度加权投票，"
+                        + "表类别判定为“%s”（证据字段：%s）；遵循就高不就低原则，表级别取全表字段最高级确定为%d级。",
+                classification, String.join("、", keyColumns.subList(0, Math.min(keyColumns.size(), 8))), tableLevel);
+    }
+}
@@ -0,0 +1,71 @@
+package com.cubigdata.controller;
+
+import com.alibaba.cloud.ai.graph.CompileConfig;
+import com.alibaba.cloud.ai.graph.CompiledGraph;
+import com.alibaba.cloud.ai.graph.KeyStrategy;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
+import com.alibaba.cloud.ai.graph.checkpoint.constant.SaverEnum;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import com.cubigdata.workflow.checkpoint.BoundedMemorySaver;
+import com.cubigdata.workflow.nodes.StructuredValidationNode;
+import com.cubigdata.workflow.support.DeadlineNodeAction;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.alibaba.cloud.ai.graph.StateGraph.END;
+import static com.alibaba.cloud.ai.graph.StateGraph.START;
+import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 07:10
+ */
+class GraphControllerTest {
+
+    @Test
+    void runsOnSameThreadIdStartWithFreshRetryState() throws Exception {
+        List<Map<String, Object>> observed = new ArrayList<>();
+        StateGraph stateGraph = new StateGraph(() -> {
+            Map<String, KeyStrategy> strategies = new HashMap<>();
+            for (String key : new String[]{"query", "category", DeadlineNodeAction.DEADLINE_KEY, "retry_count",
+                    StructuredValidationNode.FALLBACK_KEY, "repair_columns"}) {
+                strategies.put(key, new ReplaceStrategy());
+            }
+            return strategies;
+        })
+                // 模拟一次用尽重试预算并输出兜底结果的执行
+                .addNode("structuredValidation", node_async(state -> {
+                    observed.add(Map.of(
+                            "retry_count", state.value("retry_count").orElse(-1),
+                            StructuredValidationNode.FALLBACK_KEY, state.value(StructuredValidationNode.FALLBACK_KEY).orElse("absent"),
+                            "repair_columns", state.value("repair_columns").orElse("absent")));
+                    return Map.of("retry_count", 2, StructuredValidationNode.FALLBACK_KEY, true, "repair_columns", List.of("a"));
+                }))
+                .addEdge(START, "structuredValidation")
+                .addEdge("structuredValidation", END);
+        CompiledGraph graph = stateGraph.compile(CompileConfig.builder()
+                .saverConfig(SaverConfig.builder()
+                        .register(SaverEnum.MEMORY.getValue(), new BoundedMemorySaver(10, Duration.ofMinutes(1), 10))
+                        .build())
+                .build());
+        RunnableConfig config = RunnableConfig.builder().threadId("caller-thread").build();
+
+        graph.call(GraphController.inputs("q1", List.of("x"), Long.MAX_VALUE), config);
+        graph.call(GraphController.inputs("q2", List.of("x"), Long.MAX_VALUE), config);
+
+        assertThat(observed).hasSize(2);
+        assertThat(observed.get(1))
+                .containsEntry("retry_count", 0)
+                .containsEntry(StructuredValidationNode.FALLBACK_KEY, false)
+                .containsEntry("repair_columns", List.of());
+    }
+}
@@ -0,0 +1,143 @@
+package com.cubigdata.vector;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 06:00
+ */
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 32;
+    private static final int SIZE = 2000;
+
+    private HnswIndex index;
+    private List<float[]> queries;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(7);
+        index = new HnswIndex(16, 200, 64);
+        for (int i = 0; i < SIZE; i++) {
+            index.add(randomVector(random));
+        }
+        queries = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            queries.add(randomVector(random));
+        }
+    }
+
+    @Test
+    void addAssignsSequentialNodesAndKeepsVectors() {
+        float[] vector = randomVector(new Random(1));
+        int node = index.add(vector);
+
+        assertThat(node).isEqualTo(SIZE);
+        assertThat(index.size()).isEqualTo(SIZE + 1);
+        assertThat(index.dimensions()).isEqualTo(DIMENSIONS);
+        assertThat(index.vector(node)).containsExactly(vector);
+        assertThat(index.search(vector, 1).get(0).node()).isEqualTo(node);
+    }
+
+    @Test
+    void addRejectsDimensionMismatch() {
+        assertThatThrownBy(() -> index.add(new float[DIMENSIONS + 1]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void searchReturnsDescendingScoresWithHighRecall() {
+        int k = 10;
+        int found = 0;
+        for (float[] query : queries) {
+            List<HnswIndex.Scored> hits = index.search(query, k, 64);
+            assertThat(hits).hasSize(k);
+            for (int i = 1; i < hits.size(); i++) {
+                assertThat(hits.get(i).score()).isLessThanOrEqualTo(hits.get(i - 1).score());
+            }
+            Set<Integer> truth = nodes(index.exactSearch(query, k));
+            found += (int) hits.stream().filter(hit -> truth.contains(hit.node())).count();
+        }
+        assertThat((double) found / (queries.size() * k)).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void searchOnEmptyIndexReturnsNothing() {
+        assertThat(new HnswIndex(16, 200, 64).search(queries.get(0), 5)).isEmpty();
+        assertThat(index.search(queries.get(0), 0)).isEmpty();
+    }
+
+    @Test
+    void markDeletedExcludesNodeFromResults() {
+        float[] query = queries.get(0);
+        int best = index.exactSearch(query, 1).get(0).node();
+
+        index.markDeleted(best);
+        index.markDeleted(best);
+
+        assertThat(index.isDeleted(best)).isTrue();
+        assertThat(index.liveSize()).isEqualTo(SIZE - 1);
+        assertThat(nodes(index.search(query, 10))).doesNotContain(best);
+        assertThat(nodes(index.exactSearch(query, 10))).doesNotContain(best);
+    }
+
+    @Test
+    void writeAndReadRoundTrip() throws IOException {
+        index.markDeleted(3);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            index.write(out);
+        }
+
+        HnswIndex restored;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored = HnswIndex.read(in, 64);
+        }
+
+        assertThat(restored.size()).isEqualTo(index.size());
+        assertThat(restored.liveSize()).isEqualTo(index.liveSize());
+        assertThat(restored.dimensions()).isEqualTo(DIMENSIONS);
+        assertThat(restored.isDeleted(3)).isTrue();
+        assertThat(restored.vector(10)).containsExactly(index.vector(10));
+        for (float[] query : queries) {
+            assertThat(restored.search(query, 10)).isEqualTo(index.search(query, 10));
+        }
+    }
+
+    @Test
+    void readRejectsForeignData() {
+        byte[] garbage = {1, 2, 3, 4, 5, 6, 7, 8};
+        assertThatThrownBy(() -> HnswIndex.read(new DataInputStream(new ByteArrayInputStream(garbage)), 64))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static Set<Integer> nodes(List<HnswIndex.Scored> hits) {
+        Set<Integer> nodes = new HashSet<>();
+        hits.forEach(hit -> nodes.add(hit.node()));
+        return nodes;
+    }
+
+    static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return VectorMath.normalize(vector);
+    }
+}
@@ -0,0 +1,137 @@
+package com.cubigdata.vector;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 06:20
+ */
+class VectorQuantizerTest {
+
+    private static final int DIMENSIONS = 32;
+    private static final int SIZE = 1000;
+    private static final int K = 10;
+
+    private List<float[]> vectors;
+    private List<float[]> queries;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(11);
+        vectors = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            vectors.add(HnswIndexTest.randomVector(random));
+        }
+        queries = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            queries.add(HnswIndexTest.randomVector(random));
+        }
+    }
+
+    @Test
+    void scalarQuantizerUsesOneBytePerDimensionAndKeepsScoresClose() {
+        ScalarQuantizer quantizer = ScalarQuantizer.train(SIZE, DIMENSIONS, vectors::get);
+
+        assertThat(quantizer.type()).isEqualTo(VectorQuantizer.Type.INT8);
+        assertThat(quantizer.codeSize()).isEqualTo(DIMENSIONS);
+
+        byte[] codes = new byte[quantizer.codeSize() * 2];
+        quantizer.encode(vectors.get(0), codes, quantizer.codeSize());
+        float[] query = queries.get(0);
+        float approximate = quantizer.scorer(query).score(codes, quantizer.codeSize());
+        assertThat(approximate).isCloseTo(VectorMath.dot(vectors.get(0), query), offset(0.05f));
+    }
+
+    @Test
+    void productQuantizerUsesOneBytePerSubspace() {
+        ProductQuantizer quantizer = ProductQuantizer.train(SIZE, DIMENSIONS, vectors::get, 8);
+
+        assertThat(quantizer.type()).isEqualTo(VectorQuantizer.Type.PQ);
+        assertThat(quantizer.codeSize()).isEqualTo(8);
+        assertThat(QuantizedIndex.build(quantizer, SIZE, vectors::get).memoryBytes()).isEqualTo(8L * SIZE);
+    }
+
+    @Test
+    void productQuantizerRejectsMoreSubspacesThanDimensions() {
+        assertThatThrownBy(() -> ProductQuantizer.train(SIZE, DIMENSIONS, vectors::get, DIMENSIONS + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void trainByTypeUsesDefaultSubspacesAndRejectsNone() {
+        assertThat(VectorQuantizer.train(VectorQuantizer.Type.of("pq"), SIZE, DIMENSIONS, vectors::get, 0).codeSize())
+                .isEqualTo(DIMENSIONS / 8);
+        assertThat(VectorQuantizer.Type.of(" int8 ")).isEqualTo(VectorQuantizer.Type.INT8);
+        assertThat(VectorQuantizer.Type.of("")).isEqualTo(VectorQuantizer.Type.NONE);
+        assertThatThrownBy(() -> VectorQuantizer.train(VectorQuantizer.Type.NONE, SIZE, DIMENSIONS, vectors::get, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> VectorQuantizer.Type.of("fp16")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void scalarIndexRecallWithRescoring() {
+        QuantizedIndex index = QuantizedIndex.build(ScalarQuantizer.train(SIZE, DIMENSIONS, vectors::get), SIZE, vectors::get);
+
+        assertThat(recall(index, K * 2)).isGreaterThanOrEqualTo(0.95);
+    }
+
+    @Test
+    void productIndexRecallImprovesWithRescoring() {
+        QuantizedIndex index = QuantizedIndex.build(ProductQuantizer.train(SIZE, DIMENSIONS, vectors::get, 16), SIZE, vectors::get);
+
+        double approximate = recall(index, K);
+        double rescored = recall(index, K * 8);
+        assertThat(rescored).isGreaterThan(approximate).isGreaterThanOrEqualTo(0.8);
+    }
+
+    @Test
+    void searchSkipsRejectedRowsAndRescoresExactly() {
+        QuantizedIndex index = QuantizedIndex.build(ScalarQuantizer.train(SIZE, DIMENSIONS, vectors::get), SIZE, vectors::get);
+        float[] query = queries.get(0);
+
+        List<HnswIndex.Scored> hits = index.search(query, K, K * 4, row -> row % 2 == 0, this::exact);
+
+        assertThat(hits).hasSize(K).allMatch(hit -> hit.node() % 2 == 0);
+        for (HnswIndex.Scored hit : hits) {
+            assertThat(hit.score()).isEqualTo(exact(hit.node(), query));
+        }
+    }
+
+    private double recall(QuantizedIndex index, int candidates) {
+        int found = 0;
+        for (float[] query : queries) {
+            Set<Integer> truth = exactTopK(query);
+            for (HnswIndex.Scored hit : index.search(query, K, candidates, null, this::exact)) {
+                if (truth.contains(hit.node())) {
+                    found++;
+                }
+            }
+        }
+        return (double) found / (queries.size() * K);
+    }
+
+    private Set<Integer> exactTopK(float[] query) {
+        List<Integer> rows = new ArrayList<>();
+        for (int row = 0; row < SIZE; row++) {
+            rows.add(row);
+        }
+        rows.sort((a, b) -> Float.compare(exact(b, query), exact(a, query)));
+        return new HashSet<>(rows.subList(0, K));
+    }
+
+    private float exact(int row, float[] query) {
+        return VectorMath.dot(vectors.get(row), query);
+    }
+}
@@ -0,0 +1,120 @@
+package com.cubigdata.workflow.rules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 06:40
+ */
+class RuleBasedClassifierTest {
+
+    private static final String KNOWLEDGE_BASE = """
+            该字段属于“用户相关数据 > 用户身份相关数据 > 网络身份标识”这一分类层级，字段名称是“宽带账号”，被归为“3级数据”。
+            该字段属于“用户相关数据 > 用户身份相关数据 > 自然人身份标识”这一分类层级，字段名称是“姓名”，被归为“4级数据”。备注信息：与手机号码同时出现时定为 4 级。
+            该字段属于“用户相关数据 > 用户身份相关数据 > 用户私密资料”这一分类层级，字段名称是“银行卡号”，被归为“4级数据”。
+            该字段属于“用户相关数据 > 用户身份相关数据 > 设备资料与信息”这一分类层级，字段名称是“银行卡号”，被归为“3级数据”。
+            """;
+
+    private static final List<String> CATEGORIES = List.of("网络身份标识", "自然人身份标识", "用户私密资料", "实体身份证明");
+
+    private RuleBasedClassifier classifier;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        classifier = new RuleBasedClassifier(new ByteArrayResource(KNOWLEDGE_BASE.getBytes(StandardCharsets.UTF_8)),
+                new ClassPathResource("rag/value_rules.json"), new ObjectMapper());
+    }
+
+    @Test
+    void luhnAcceptsValidCardNumbersOnly() {
+        assertThat(RuleBasedClassifier.luhn("4111111111111111")).isTrue();
+        assertThat(RuleBasedClassifier.luhn("6222020200112233441")).isFalse();
+        assertThat(RuleBasedClassifier.luhn("4111111111111112")).isFalse();
+        assertThat(RuleBasedClassifier.luhn("4111-1111")).isFalse();
+    }
+
+    @Test
+    void idCardChecksLengthAndCheckDigit() {
+        assertThat(RuleBasedClassifier.idCard("11010519491231002X")).isTrue();
+        assertThat(RuleBasedClassifier.idCard("11010519491231002x")).isTrue();
+        assertThat(RuleBasedClassifier.idCard("110105194912310021")).isFalse();
+        assertThat(RuleBasedClassifier.idCard("11010519491231002")).isFalse();
+    }
+
+    @Test
+    void dictionaryMatchesCommentIgnoringWhitespace() {
+        RuleBasedClassifier.Match match = classifier.classify(column("kd_acct", " 宽带 账号 ", null), CATEGORIES);
+
+        assertThat(match).isNotNull();
+        assertThat(match.category()).isEqualTo("网络身份标识");
+        assertThat(match.level()).isEqualTo(3);
+        assertThat(match.reliability()).isEqualTo(95);
+    }
+
+    @Test
+    void conditionalEntriesAndAmbiguousCategoriesAreLeftToTheModel() {
+        assertThat(classifier.classify(column("name", "姓名", null), CATEGORIES)).isNull();
+        assertThat(classifier.classify(column("card", "银行卡号", null),
+                List.of("用户私密资料", "设备资料与信息"))).isNull();
+        assertThat(classifier.classify(column("card", "银行卡号", null), CATEGORIES).category()).isEqualTo("用户私密资料");
+    }
+
+    @Test
+    void mobileRuleRequiresNameOrCommentHint() {
+        String samples = "13800138000,13912345678";
+
+        assertThat(classifier.classify(column("order_no", "订单号", samples), CATEGORIES)).isNull();
+
+        RuleBasedClassifier.Match match = classifier.classify(column("contact_phone", "联系人", samples), CATEGORIES);
+        assertThat(match).isNotNull();
+        assertThat(match.category()).isEqualTo("网络身份标识");
+        assertThat(match.level()).isEqualTo(4);
+        assertThat(match.reliability()).isEqualTo(90);
+    }
+
+    @Test
+    void valueRulesRequireEverySampleToMatchAndValidate() {
+        assertThat(classifier.classify(column("cert_no", "证件号", List.of("11010519491231002X")), CATEGORIES).category())
+                .isEqualTo("实体身份证明");
+        assertThat(classifier.classify(column("cert_no", "证件号", "11010519491231002X,110105194912310021"), CATEGORIES))
+                .isNull();
+        assertThat(classifier.classify(column("card_no", "卡号", "4111111111111111"), CATEGORIES).category())
+                .isEqualTo("用户私密资料");
+        assertThat(classifier.classify(column("card_no", "卡号", "4111111111111112"), CATEGORIES)).isNull();
+    }
+
+    @Test
+    void agreeingDictionaryAndValueRuleRaiseReliability() {
+        RuleBasedClassifier.Match match = classifier.classify(column("card", "银行卡号", "4111111111111111"), CATEGORIES);
+
+        assertThat(match.category()).isEqualTo("用户私密资料");
+        assertThat(match.level()).isEqualTo(4);
+        assertThat(match.reliability()).isEqualTo(98);
+        assertThat(match.toColumnResult("m")).containsEntry("columnClassifications", "用户私密资料")
+                .containsEntry("columnLevel", "4")
+                .containsEntry("modelKey", "m");
+    }
+
+    @Test
+    void categoryOutsideTargetsIsNotLabelled() {
+        assertThat(classifier.classify(column("kd_acct", "宽带账号", null), List.of("用户私密资料"))).isNull();
+    }
+
+    private static Map<String, Object> column(String name, String comment, Object exampleData) {
+        return exampleData == null
+                ? Map.of("columnName", name, "columnComment", comment)
+                : Map.of("columnName", name, "columnComment", comment, "exampleData", exampleData);
+    }
+}
@@ -0,0 +1,107 @@
+package com.cubigdata.workflow.similarity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * @author yHong
+ * @version 1.0
+ * @since 2026/10/18 07:40
+ */
+class HistoricalLabelIndexTest {
+
+    private static final Resource SOURCE = new ByteArrayResource("""
+            {"type":"column","name":"phone","description":"手机号码","category":"网络身份标识","level":"4"}
+            {"type":"column","name":"addr","description":"居住地址","category":"用户基本资料","level":"3"}
+            """.getBytes(StandardCharsets.UTF_8));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void persistedVectorsAreReusedOnlyForTheSameModelAndDimensions() {
+        Path indexFile = dir.resolve("historical.json");
+        StubEmbeddingModel small = new StubEmbeddingModel(4);
+        search(new HistoricalLabelIndex(small, new ObjectMapper(), SOURCE, "model-a", indexFile, 16));
+        assertThat(small.embeddedTexts.get()).isEqualTo(3);
+
+        StubEmbeddingModel same = new StubEmbeddingModel(4);
+        search(new HistoricalLabelIndex(same, new ObjectMapper(), SOURCE, "model-a", indexFile, 16));
+        assertThat(same.embeddedTexts.get()).as("只向量化查询").isEqualTo(1);
+
+        StubEmbeddingModel renamed = new StubEmbeddingModel(4);
+        search(new HistoricalLabelIndex(renamed, new ObjectMapper(), SOURCE, "model-b", indexFile, 16));
+        assertThat(renamed.embeddedTexts.get()).as("模型变更后重新向量化").isEqualTo(3);
+
+        StubEmbeddingModel wider = new StubEmbeddingModel(8);
+        List<HistoricalLabelIndex.Match> matches = search(new HistoricalLabelIndex(wider, new ObjectMapper(), SOURCE,
+                "model-b", indexFile, 16));
+        assertThat(wider.embeddedTexts.get()).as("维度变更后重新向量化").isEqualTo(3);
+        assertThat(matches).first().satisfies(match -> {
+            assertThat(match.label().name()).isEqualTo("phone");
+            assertThat(match.score()).isCloseTo(1.0, offset(1e-6));
+        });
+    }
+
+    private static List<HistoricalLabelIndex.Match> search(HistoricalLabelIndex index) {
+        return index.search(HistoricalLabel.COLUMN, List.of("手机号码"), 0.5, 2).get(0);
+    }
+
+    /**
+     * 按文本哈希生成确定性向量， 记录实际向量化的文本数（dimensions 探测不计入）
+     */
+    private static final class StubEmbeddingModel implements EmbeddingModel {
+
+        private final int dimensions;
+        private final AtomicInteger embeddedTexts = new AtomicInteger();
+
+        StubEmbeddingModel(int dimensions) {
+            this.dimensions = dimensions;
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embeddedTexts.incrementAndGet();
+                embeddings.add(new Embedding(vector(text), embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return vector(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return dimensions;
+        }
+
+        private float[] vector(String text) {
+            float[] vector = new float[dimensions];
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] = (text.hashCode() >>> i) % 7 + 1;
+            }
+            return vector;
+        }
+    }
+}